@@ -1,3 +1,11 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * Array Implementation of List
  * @param <E>
@@ -14,6 +22,17 @@ public class ArrayList<E> implements ListAdt<E> {
      */
     private int size;
 
+    /**
+     * Number of times items were added or removed, used by iterators to detect changes made
+     * to the list while iterating
+     */
+    private int modCount;
+
+    /**
+     * Number of times the array was replaced by one of another length
+     */
+    private int resizeCount;
+
     /**
      * Default initial size of list if no size is given
      */
@@ -55,9 +74,30 @@ public class ArrayList<E> implements ListAdt<E> {
             increaseSize();
         items[size] = item;
         size++;
+        modCount++;
 
     }
 
+    /**
+     * Method to insert an item at given index
+     * @param index - index where the item needs to be inserted
+     * @param item - new item to be inserted
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        if(index < 0 || index > size)
+            throw new IndexOutOfBoundsException();
+        if(this.size == items.length)
+            increaseSize();
+        for(int i = size; i > index; i--) {
+            items[i] = items[i-1];
+        }
+        items[index] = item;
+        size++;
+        modCount++;
+    }
+
     /**
      * Method to remove an item at given index
      * @param index - index of the item to be removed
@@ -73,6 +113,9 @@ public class ArrayList<E> implements ListAdt<E> {
             items[i-1] = items[i];
         }
         size--;
+        modCount++;
+        // clear the freed slot so the removed item can be garbage collected
+        items[size] = null;
         return removedElement;
     }
 
@@ -155,16 +198,208 @@ public class ArrayList<E> implements ListAdt<E> {
         return -1;
     }
 
+    /**
+     * Method to add all items of another list, growing the array at most once
+     * @param newItems - items to be added
+     */
+    @Override
+    public void addAll(ListAdt<? extends E> newItems) {
+        int count = newItems.size();
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            items[size + i] = newItems.getItem(i);
+        }
+        size += count;
+        modCount++;
+    }
+
+    /**
+     * Method to remove every item matching the filter. The filter is run on every item first
+     * and the list is only compacted once it has run, so a filter that fails leaves the list
+     * unchanged
+     * @param filter - returns true for the items to be removed
+     * @return number of items removed
+     */
+    @Override
+    public int removeIf(Predicate<? super E> filter) {
+        long[] matched = new long[(size + 63) >>> 6];
+        int removed = 0;
+        for (int i = 0; i < size; i++) {
+            if(filter.test(items[i])) {
+                matched[i >>> 6] |= 1L << i;
+                removed++;
+            }
+        }
+        if(removed == 0)
+            return 0;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if((matched[i >>> 6] & (1L << i)) == 0)
+                items[kept++] = items[i];
+        }
+        // clear the freed slots so the removed items can be garbage collected
+        Arrays.fill(items, kept, size, null);
+        size = kept;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Method to make sure the array can hold at least the given number of items
+     * @param minCapacity - number of items the list should be able to hold
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        if(minCapacity > items.length)
+            resize(Math.max(minCapacity, size + (size*INCREASE_FACTOR)));
+    }
+
+    /**
+     * Method to shrink the array to the size of the list
+     */
+    @Override
+    public void trimToSize() {
+        if(items.length > size)
+            resize(Math.max(size, 1));
+    }
+
+    /**
+     * Method to get an iterator over the items that fails fast if items are added or removed
+     * while iterating
+     * @return iterator over the items
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if(modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if(index >= size)
+                    throw new NoSuchElementException();
+                return items[index++];
+            }
+        };
+    }
+
+    /**
+     * Method to get a sized spliterator over the backing array that fails fast if items are
+     * added or removed while traversing
+     * @return spliterator over the items
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator(0, -1, 0);
+    }
+
+    /**
+     * Spliterator over a range of the backing array, the range is bound on first use
+     */
+    private class ArraySpliterator implements Spliterator<E> {
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        private ArraySpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if(fence < 0) {
+                expectedModCount = modCount;
+                fence = size;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int mid = (index + hi) >>> 1;
+            if(index >= mid)
+                return null;
+            ArraySpliterator prefix = new ArraySpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            int hi = getFence();
+            if(index >= hi)
+                return false;
+            action.accept(items[index++]);
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            int hi = getFence();
+            E[] array = items;
+            for (; index < hi; index++) {
+                action.accept(array[index]);
+            }
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    /**
+     * Method to get the number of items the list can hold before the array is grown
+     * @return length of the array
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * Method to get the number of times the array was grown or shrunk
+     * @return number of resizes
+     */
+    public int resizeCount() {
+        return resizeCount;
+    }
+
     /**
      * Method to increase the size of the list by the increase factor
      */
     private void increaseSize() {
-        int newSize = size + (size*INCREASE_FACTOR);
+        resize(size + (size*INCREASE_FACTOR));
+    }
+
+    /**
+     * Method to move the items into an array of the given length
+     * @param newSize - length of the new array, at least the size of the list
+     */
+    private void resize(int newSize) {
         E[] tempArr = (E[]) new Object[newSize];
         for(int i = 0; i<size; i++){
             tempArr[i] = items[i];
         }
         items = tempArr;
+        resizeCount++;
     }
 
     /**
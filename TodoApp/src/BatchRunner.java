@@ -0,0 +1,261 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Runner of TodoList commands without prompts
+ * Commands are read one per line from a single buffered reader and applied back to back.
+ * Changes are committed to storage in groups, and one summary is printed at the end.
+ * Blank lines and lines starting with # are ignored
+ *
+ * Commands:
+ *   add yyyy-mm-dd name      add a task
+ *   done name                mark the first task with the name as done
+ *   remove name              remove the first task with the name
+ *   remove-at index          remove the task at the 1 based index
+ *   find name                look up a task by name
+ *   exists name              check if a task with the name exists
+ *   search fragment          look up tasks by part of their name
+ *   remove-completed         remove all completed tasks
+ *   complete-overdue         mark all overdue tasks as done
+ *   undo                     undo the last change
+ *   redo                     redo the last undone change
+ *   import path              import the tasks of a .csv or .ics file
+ *   export path              export all tasks to a .csv or .ics file
+ *   list [all|completed|incomplete]  print the tasks
+ *   query key=value ...      print the tasks meeting all conditions, the keys are status
+ *                            (completed|incomplete), from, to, name, sort (list|due|name),
+ *                            offset and limit
+ */
+public class BatchRunner {
+
+    /**
+     * Number of applied commands after which the changes are committed
+     */
+    private static final int COMMIT_EVERY = 1000;
+
+    /**
+     * Number of errors printed before the remaining errors are only counted
+     */
+    private static final int MAX_ERRORS_SHOWN = 20;
+
+    /**
+     * List the commands are applied to
+     */
+    private final TaskList taskList;
+
+    /**
+     * Journal the changes are committed to, null if the tasks are only kept in memory
+     */
+    private final TaskJournal journal;
+
+    /**
+     * Stream the summary and listings are printed to
+     */
+    private final PrintStream out;
+
+    /**
+     * Builder of the added tasks, repeated names and dates are shared
+     */
+    private final TaskFactory.Builder taskBuilder = TaskFactory.shared().builder();
+
+    // Counters for the summary
+    private int applied;
+    private int failed;
+    private int lookups;
+    private int found;
+
+    /**
+     * Constructor to create a runner for the given list
+     * @param taskList - list the commands are applied to
+     * @param journal - journal the changes are committed to, null if none
+     * @param out - stream the summary is printed to
+     */
+    public BatchRunner(TaskList taskList, TaskJournal journal, PrintStream out) {
+        this.taskList = taskList;
+        this.journal = journal;
+        this.out = out;
+    }
+
+    /**
+     * Method to apply all commands of the reader and print a summary
+     * @param commands - reader of the commands, one per line
+     * @return number of commands that failed
+     * @throws IOException - if the commands cannot be read
+     */
+    public int run(BufferedReader commands) throws IOException {
+        long start = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        while ((line = commands.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#"))
+                continue;
+            long commandStart = System.nanoTime();
+            try {
+                apply(line);
+                applied++;
+                int space = line.indexOf(' ');
+                Metrics.histogram("batch." + (space < 0 ? line : line.substring(0, space)))
+                        .record(System.nanoTime() - commandStart);
+                if(journal != null && applied % COMMIT_EVERY == 0)
+                    journal.commit();
+            } catch (Exception ex) {
+                failed++;
+                if(failed <= MAX_ERRORS_SHOWN)
+                    out.format("ERROR: line %d [%s]: %s\n", lineNumber, line, ex.getMessage());
+            }
+        }
+        if(journal != null)
+            journal.commit();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        out.format("Applied %d commands, %d failed in %d ms", applied, failed, millis);
+        if(lookups > 0)
+            out.format(" | Found %d of %d lookups", found, lookups);
+        out.format("\nTotal Tasks [%d] | Completed Tasks[%d] | Rem Tasks[%d]\n", taskList.size(),
+                taskList.completedCount(), taskList.incompleteCount());
+        return failed;
+    }
+
+    /**
+     * Method to apply one command
+     * @param line - command line
+     * @throws Exception - if the command is invalid or cannot be applied
+     */
+    private void apply(String line) throws Exception {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+        switch (command) {
+            case "add": {
+                int dateEnd = argument.indexOf(' ');
+                if(dateEnd < 0)
+                    throw new IllegalArgumentException("Usage: add yyyy-mm-dd name");
+                LocalDate dueDate = LocalDate.parse(argument.substring(0, dateEnd));
+                String name = argument.substring(dateEnd + 1).trim();
+                TodoList.validateTask(name, dueDate);
+                taskList.addItem(taskBuilder.name(name).dueDate(dueDate).build());
+                break;
+            }
+            case "done": requireTask(argument).setDone(true); break;
+            case "remove": taskList.removeItem(taskList.indexOf(requireTask(argument))); break;
+            case "remove-at": taskList.removeItem(Integer.parseInt(argument) - 1); break;
+            case "find":
+            case "exists":
+                lookups++;
+                if(taskList.containsName(argument))
+                    found++;
+                break;
+            case "search":
+                lookups++;
+                if(!taskList.search(argument, 1).isEmpty())
+                    found++;
+                break;
+            case "remove-completed": taskList.removeIf(Task::isDone); break;
+            case "complete-overdue": {
+                LocalDate today = LocalDate.now();
+                taskList.markDoneIf(task -> task.getDueDate() != null && task.getDueDate().isBefore(today));
+                break;
+            }
+            case "undo":
+                if(!taskList.undo())
+                    throw new IllegalStateException("Nothing to undo");
+                break;
+            case "redo":
+                if(!taskList.redo())
+                    throw new IllegalStateException("Nothing to redo");
+                break;
+            case "import": {
+                TaskImporter importer = new TaskImporter(taskList, journal);
+                importer.importFile(Paths.get(argument));
+                out.print(importer.summary());
+                break;
+            }
+            case "export": new TaskExporter().exportFile(Paths.get(argument), taskList); break;
+            case "list": list(argument); break;
+            case "query": query(argument); break;
+            default: throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    /**
+     * Method to find the task with the given name
+     * @param name - name of the task
+     * @return first task with the name
+     * @throws IllegalArgumentException - if no task has the name
+     */
+    private Task requireTask(String name) throws IllegalArgumentException {
+        Task task = taskList.findByName(name);
+        if(task == null)
+            throw new IllegalArgumentException("No task found by this name");
+        return task;
+    }
+
+    /**
+     * Method to print the tasks with the given status
+     * @param status - all, completed or incomplete, all if empty
+     */
+    private void list(String status) {
+        ListAdt<Task> tasks;
+        switch (status) {
+            case "":
+            case "all": tasks = taskList; break;
+            case "completed": tasks = taskList.completedTasks(); break;
+            case "incomplete": tasks = taskList.incompleteTasks(); break;
+            default: throw new IllegalArgumentException("Unknown status " + status);
+        }
+        new TaskRenderer(out).render(tasks, 0, tasks.size());
+    }
+
+    /**
+     * Method to print the tasks meeting the conditions of a query
+     * @param conditions - key=value conditions separated by spaces
+     */
+    private void query(String conditions) {
+        TaskQuery query = taskList.query().orderBy(TaskQuery.Order.LIST);
+        LocalDate from = null;
+        LocalDate to = null;
+        for (String condition : conditions.split("\\s+")) {
+            if(condition.isEmpty())
+                continue;
+            int equals = condition.indexOf('=');
+            if(equals < 0)
+                throw new IllegalArgumentException("Usage: query key=value ...");
+            String value = condition.substring(equals + 1);
+            switch (condition.substring(0, equals)) {
+                case "status":
+                    if("completed".equals(value))
+                        query.completed();
+                    else if("incomplete".equals(value))
+                        query.incomplete();
+                    else if(!"all".equals(value))
+                        throw new IllegalArgumentException("Unknown status " + value);
+                    break;
+                case "from": from = LocalDate.parse(value); break;
+                case "to": to = LocalDate.parse(value); break;
+                case "name": query.nameContains(value); break;
+                case "sort":
+                    switch (value) {
+                        case "list": query.orderBy(TaskQuery.Order.LIST); break;
+                        case "due": query.orderBy(TaskQuery.Order.DUE_DATE); break;
+                        case "name": query.orderBy(TaskQuery.Order.NAME); break;
+                        default: throw new IllegalArgumentException("Unknown sort " + value);
+                    }
+                    break;
+                case "offset": query.offset(Integer.parseInt(value)); break;
+                case "limit": query.limit(Integer.parseInt(value)); break;
+                default: throw new IllegalArgumentException("Unknown condition " + condition);
+            }
+        }
+        if(from != null || to != null)
+            query.dueBetween(from, to);
+        ListAdt<Task> tasks = query.run();
+        lookups++;
+        if(!tasks.isEmpty())
+            found++;
+        new TaskRenderer(out).render(tasks, 0, tasks.size());
+    }
+}
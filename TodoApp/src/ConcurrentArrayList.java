@@ -0,0 +1,402 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe Array Implementation of List
+ * Writes take an exclusive lock and are done one at a time. Reads do not lock: they read the
+ * array and size optimistically and only take a read lock if a write happened while they were
+ * reading, so readers on many threads do not block each other. The lock is not reentrant, so
+ * the filter of removeIf must not use the list, it fails with IllegalStateException if it does
+ * Only the list itself is thread safe. A TaskList over it keeps its indexes and counts without
+ * a lock, so it must be used bare to be shared between threads, or from one thread at a time
+ * @param <E>
+ */
+public class ConcurrentArrayList<E> implements ListAdt<E> {
+
+    /**
+     * Array of items where list items are stored
+     */
+    private E[] items;
+
+    /**
+     * size of the list that increases or decrease on addition or removal items
+     */
+    private int size;
+
+    /**
+     * Lock guarding the array and size
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Thread running the filter of removeIf under the write lock, null otherwise. Only the
+     * thread itself needs to see it, to fail instead of waiting for the lock it holds
+     */
+    private Thread filtering;
+
+    /**
+     * Default initial size of list if no size is given
+     */
+    private static int DEFAULT_SIZE = 16;
+
+    /**
+     * Default constructor of list to create a list of Default size
+     */
+    public ConcurrentArrayList() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor to initialize the List with given capacity
+     * @param initialCapacity - initial desired capacity of list
+     */
+    public ConcurrentArrayList(int initialCapacity) {
+        if(initialCapacity > 0) {
+            this.items = (E[]) new Object[initialCapacity];
+        } else {
+            throw new IllegalArgumentException("Invalid Initial Capacity : " + initialCapacity);
+        }
+    }
+
+    /**
+     * Method to add item in list
+     * @param item - new item to be added
+     */
+    @Override
+    public void addItem(E item) {
+        long stamp = writeLock();
+        try {
+            if(size == items.length)
+                increaseSize();
+            items[size++] = item;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to insert an item at given index
+     * @param index - index where the item needs to be inserted
+     * @param item - new item to be inserted
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        long stamp = writeLock();
+        try {
+            if(index < 0 || index > size)
+                throw new IndexOutOfBoundsException();
+            if(size == items.length)
+                increaseSize();
+            System.arraycopy(items, index, items, index + 1, size - index);
+            items[index] = item;
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to remove an item at given index
+     * @param index - index of the item to be removed
+     * @return removed item
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E removeItem(int index) throws IndexOutOfBoundsException {
+        long stamp = writeLock();
+        try {
+            if(index < 0 || index >= size)
+                throw new IndexOutOfBoundsException();
+            E removedElement = items[index];
+            System.arraycopy(items, index + 1, items, index, size - index - 1);
+            items[--size] = null;
+            return removedElement;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to get item by given index, without locking unless a write is in progress
+     * @param index - index of item
+     * @return item at given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E getItem(int index) throws IndexOutOfBoundsException {
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0) {
+            E[] currentItems = items;
+            int currentSize = size;
+            boolean valid = index >= 0 && index < currentSize && index < currentItems.length;
+            E item = valid ? currentItems[index] : null;
+            if(lock.validate(stamp)) {
+                if(!valid)
+                    throw new IndexOutOfBoundsException();
+                return item;
+            }
+        }
+        stamp = readLock();
+        try {
+            if(index < 0 || index >= size)
+                throw new IndexOutOfBoundsException();
+            return items[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to set item at given index
+     * @param index - index where new elements needs to be added
+     * @param item  - the item to be added
+     * @return old item present at the given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E setItem(int index, E item) throws IndexOutOfBoundsException {
+        long stamp = writeLock();
+        try {
+            if(index < 0 || index >= size)
+                throw new IndexOutOfBoundsException();
+            E oldVal = items[index];
+            items[index] = item;
+            return oldVal;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to return the size of the list
+     * @return size of the list
+     */
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if(stamp != 0 && lock.validate(stamp))
+            return currentSize;
+        stamp = readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to check if list is empty
+     * @return true if empty else false
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Method to check if item is present in the list. The list is scanned optimistically and
+     * scanned again under a read lock if a write happened during the scan
+     * @param item - item that needs to be check in the list or not
+     * @return true if exist else false
+     */
+    @Override
+    public boolean contains(E item) {
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0) {
+            try {
+                boolean found = indexOfValue(items, size, item) >= 0;
+                if(lock.validate(stamp))
+                    return found;
+            } catch (RuntimeException ex) {
+                // a torn read can fail in equals, the scan is redone under the read lock
+            }
+        }
+        stamp = readLock();
+        try {
+            return indexOfValue(items, size, item) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to add all items of another list as one write, growing the array at most once.
+     * The items are copied before the write lock is taken, so the list can be added to itself
+     * @param newItems - items to be added
+     */
+    @Override
+    public void addAll(ListAdt<? extends E> newItems) {
+        Object[] copy = newItems.stream().toArray();
+        long stamp = writeLock();
+        try {
+            reserve(size + copy.length);
+            System.arraycopy(copy, 0, items, size, copy.length);
+            size += copy.length;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to remove every item matching the filter as one write. The filter is run on every
+     * item first and the list is only compacted once it has run, so a filter that fails leaves
+     * the list unchanged
+     * @param filter - returns true for the items to be removed, it must not use the list
+     * @return number of items removed
+     * @throws IllegalStateException - if the filter uses the list
+     */
+    @Override
+    public int removeIf(Predicate<? super E> filter) throws IllegalStateException {
+        long stamp = writeLock();
+        try {
+            long[] matched = new long[(size + 63) >>> 6];
+            int removed = 0;
+            filtering = Thread.currentThread();
+            try {
+                for (int i = 0; i < size; i++) {
+                    if(filter.test(items[i])) {
+                        matched[i >>> 6] |= 1L << i;
+                        removed++;
+                    }
+                }
+            } finally {
+                filtering = null;
+            }
+            if(removed == 0)
+                return 0;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if((matched[i >>> 6] & (1L << i)) == 0)
+                    items[kept++] = items[i];
+            }
+            Arrays.fill(items, kept, size, null);
+            size = kept;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to take the write lock, failing instead of waiting forever when called from the
+     * filter of removeIf, which holds it
+     * @return stamp of the lock
+     */
+    private long writeLock() {
+        checkNotFiltering();
+        return lock.writeLock();
+    }
+
+    /**
+     * Method to take the read lock, failing instead of waiting forever when called from the
+     * filter of removeIf, which holds the write lock
+     * @return stamp of the lock
+     */
+    private long readLock() {
+        checkNotFiltering();
+        return lock.readLock();
+    }
+
+    private void checkNotFiltering() {
+        if(filtering == Thread.currentThread())
+            throw new IllegalStateException("The filter of removeIf cannot use the list it removes from");
+    }
+
+    /**
+     * Method to make sure the array can hold at least the given number of items
+     * @param minCapacity - number of items the list should be able to hold
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        long stamp = writeLock();
+        try {
+            reserve(minCapacity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to shrink the array to the size of the list
+     */
+    @Override
+    public void trimToSize() {
+        long stamp = writeLock();
+        try {
+            if(items.length > size) {
+                E[] tempArr = (E[]) new Object[Math.max(size, 1)];
+                System.arraycopy(items, 0, tempArr, 0, size);
+                items = tempArr;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to get an iterator over a snapshot of the list, later changes are not seen
+     * @return iterator over the items
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Method to get a spliterator over a snapshot of the list taken under the read lock, so
+     * it can be traversed while other threads change the list
+     * @return spliterator over the items
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        long stamp = readLock();
+        try {
+            return Arrays.spliterator(Arrays.copyOf(items, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to find the index value of the given item in a possibly stale view of the list
+     * @param currentItems - array of items
+     * @param currentSize - size of the list
+     * @param item - item for which we need to find the index
+     * @return index of the given item
+     */
+    private static <E> int indexOfValue(E[] currentItems, int currentSize, E item) {
+        int end = Math.min(currentSize, currentItems.length);
+        for (int i = 0; i < end; i++) {
+            E current = currentItems[i];
+            if(item == null ? current == null : item.equals(current))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to double the capacity of the list, called with the write lock held
+     */
+    private void increaseSize() {
+        reserve(items.length * 2);
+    }
+
+    /**
+     * Method to grow the array to hold at least the given number of items, called with the
+     * write lock held
+     * @param minCapacity - number of items the list should be able to hold
+     */
+    private void reserve(int minCapacity) {
+        if(minCapacity <= items.length)
+            return;
+        E[] tempArr = (E[]) new Object[Math.max(minCapacity, items.length * 2)];
+        System.arraycopy(items, 0, tempArr, 0, size);
+        items = tempArr;
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test of the thread safe list against a sequential model
+ * A number of writer threads add, bulk add and remove items on one shared list for a fixed
+ * time while reader threads read it by index, by value and through snapshots. Each writer owns
+ * the items it adds, numbered by writer and sequence, and keeps its own sequential model of the
+ * items it added and has not removed yet. Since only the owner removes an item, every read of
+ * an owned item must agree with the owner's model at that moment, and at the end the items of
+ * each writer in the list must be exactly its model, in the order they were added. Reads must
+ * never see a torn or null item. The reentrant calls that used to deadlock the list, adding the
+ * list to itself and a filter reading the list, are checked first. Fails with exit code 1 if
+ * any check does not hold
+ *
+ * Usage: java ConcurrentListStressTest [--writers n] [--readers n] [--seconds n] [--seed n]
+ */
+public class ConcurrentListStressTest {
+
+    /**
+     * Largest number of items added by one bulk add
+     */
+    private static final int MAX_BATCH = 64;
+
+    /**
+     * Number of items a writer keeps before it starts removing them
+     */
+    private static final int TARGET_ITEMS = 2000;
+
+    private int writers = 4;
+    private int readers = 4;
+    private int seconds = 10;
+    private long seed = 42;
+
+    private final ConcurrentArrayList<Long> list = new ConcurrentArrayList<>();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+
+    /**
+     * Method to get the item with the given writer and sequence number
+     */
+    private static long item(int writer, int sequence) {
+        return ((long) writer << 32) | sequence;
+    }
+
+    private static int writerOf(long item) {
+        return (int) (item >>> 32);
+    }
+
+    /**
+     * Sequential model of the items of one writer, items in the order they were added with a
+     * flag for the ones removed since
+     */
+    private static class Model {
+        private int added;
+        private int removedUpTo;
+        private boolean[] removed = new boolean[1024];
+        private int live;
+
+        private void add() {
+            if(added == removed.length)
+                removed = Arrays.copyOf(removed, added * 2);
+            added++;
+            live++;
+        }
+
+        private boolean isLive(int sequence) {
+            return sequence < added && !removed[sequence];
+        }
+
+        private void remove(int sequence) {
+            removed[sequence] = true;
+            live--;
+        }
+    }
+
+    /**
+     * Method to report a failed check
+     * @param message - what did not hold
+     */
+    private void fail(String message) {
+        if(failures.incrementAndGet() <= 10)
+            System.out.println("FAILED: " + message);
+    }
+
+    /**
+     * Method to check that the calls which take the lock from inside a locked call neither
+     * deadlock nor change the list when they fail
+     */
+    private void checkReentrantCalls() {
+        ConcurrentArrayList<Long> reentrant = new ConcurrentArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            reentrant.addItem(i);
+        }
+        reentrant.addAll(reentrant);
+        if(reentrant.size() != 200 || reentrant.getItem(150) != 50)
+            fail("adding the list to itself gave " + reentrant.size() + " items");
+        try {
+            reentrant.removeIf(item -> item < reentrant.size());
+            fail("a filter reading the list was not refused");
+        } catch (IllegalStateException ex) {
+            // expected, the filter cannot read the list it removes from
+        }
+        if(reentrant.size() != 200)
+            fail("a refused filter changed the list to " + reentrant.size() + " items");
+        if(reentrant.removeIf(item -> item % 2 == 0) != 100 || reentrant.size() != 100)
+            fail("removing the even items left " + reentrant.size() + " items");
+    }
+
+    /**
+     * Method to run one writer until the deadline, changing the list and its own model
+     */
+    private void write(int writer, Model model, long deadline) {
+        Random random = new Random(seed * 31 + writer);
+        while (System.nanoTime() < deadline) {
+            int choice = random.nextInt(100);
+            if(model.live < TARGET_ITEMS && choice < 50) {
+                list.addItem(item(writer, model.added));
+                model.add();
+            } else if(model.live < TARGET_ITEMS && choice < 60) {
+                ArrayList<Long> batch = new ArrayList<>(MAX_BATCH);
+                int count = 1 + random.nextInt(MAX_BATCH);
+                for (int i = 0; i < count; i++) {
+                    batch.addItem(item(writer, model.added + i));
+                }
+                list.addAll(batch);
+                for (int i = 0; i < count; i++) {
+                    model.add();
+                }
+            } else if(choice < 80) {
+                // remove the oldest live items of this writer, up to a random sequence number
+                int upTo = Math.min(model.added, model.removedUpTo + 1 + random.nextInt(MAX_BATCH));
+                int expected = 0;
+                for (int s = model.removedUpTo; s < upTo; s++) {
+                    if(model.isLive(s))
+                        expected++;
+                }
+                int from = model.removedUpTo;
+                int removed = list.removeIf(item -> item != null && writerOf(item) == writer
+                        && (int) (long) item >= from && (int) (long) item < upTo);
+                if(removed != expected)
+                    fail("writer " + writer + " removed " + removed + " items instead of " + expected);
+                for (int s = from; s < upTo; s++) {
+                    if(model.isLive(s))
+                        model.remove(s);
+                }
+                model.removedUpTo = upTo;
+            } else if(choice < 90 && model.added > 0) {
+                // remove one random item of this writer by value
+                int sequence = random.nextInt(model.added);
+                long value = item(writer, sequence);
+                int removed = list.removeIf(item -> item != null && item == value);
+                if(removed != (model.isLive(sequence) ? 1 : 0))
+                    fail("writer " + writer + " removed " + removed + " copies of " + sequence);
+                if(model.isLive(sequence))
+                    model.remove(sequence);
+            } else if(model.added > 0) {
+                // the writer's own items are only changed by itself, so contains must match the model
+                int sequence = random.nextInt(model.added);
+                boolean live = model.isLive(sequence);
+                if(list.contains(item(writer, sequence)) != live)
+                    fail("writer " + writer + " item " + sequence + " was " + (live ? "missing" : "found after removal"));
+            }
+            operations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Method to run one reader until the deadline, checking that no read sees a torn list
+     */
+    private void read(int reader, long deadline) {
+        Random random = new Random(seed * 17 + reader);
+        while (System.nanoTime() < deadline) {
+            int size = list.size();
+            if(random.nextInt(100) == 0) {
+                long count = list.stream().filter(item -> item == null || writerOf(item) >= writers).count();
+                if(count > 0)
+                    fail("snapshot held " + count + " invalid items");
+            } else if(size > 0) {
+                try {
+                    Long item = list.getItem(random.nextInt(size));
+                    if(item == null || writerOf(item) >= writers)
+                        fail("read an invalid item " + item);
+                } catch (IndexOutOfBoundsException ex) {
+                    // the list shrank since its size was read
+                }
+            }
+            operations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Method to check that the items left of each writer are its model, in order
+     */
+    private void checkFinalContents(Model[] models) {
+        int[] next = new int[writers];
+        int[] found = new int[writers];
+        for (Long item : list) {
+            int writer = writerOf(item);
+            int sequence = (int) (long) item;
+            Model model = models[writer];
+            while (next[writer] < model.added && !model.isLive(next[writer])) {
+                next[writer]++;
+            }
+            if(next[writer] != sequence) {
+                fail("writer " + writer + " expected item " + next[writer] + " but found " + sequence);
+                return;
+            }
+            next[writer]++;
+            found[writer]++;
+        }
+        for (int w = 0; w < writers; w++) {
+            if(found[w] != models[w].live)
+                fail("writer " + w + " has " + found[w] + " items in the list instead of " + models[w].live);
+        }
+    }
+
+    /**
+     * Method to run the stress test and print the result
+     * @return true if every check held
+     * @throws InterruptedException - if interrupted while waiting for the threads
+     */
+    private boolean run() throws InterruptedException {
+        checkReentrantCalls();
+        Model[] models = new Model[writers];
+        Thread[] threads = new Thread[writers + readers];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            models[w] = new Model();
+            threads[w] = new Thread(() -> {
+                try {
+                    write(writer, models[writer], deadline);
+                } catch (RuntimeException ex) {
+                    fail("writer " + writer + " failed with " + ex);
+                }
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            threads[writers + r] = new Thread(() -> {
+                try {
+                    read(reader, deadline);
+                } catch (RuntimeException ex) {
+                    fail("reader " + reader + " failed with " + ex);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        checkFinalContents(models);
+        System.out.format("%d writers, %d readers, %d s: %d operations, %d items left, %d failures\n",
+                writers, readers, seconds, operations.get(), list.size(), failures.get());
+        return failures.get() == 0;
+    }
+
+    /**
+     * Main function of the stress test
+     * @param args
+     */
+    public static void main(String args[]) throws InterruptedException {
+        ConcurrentListStressTest test = new ConcurrentListStressTest();
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--writers": test.writers = Integer.parseInt(args[++i]); break;
+                case "--readers": test.readers = Integer.parseInt(args[++i]); break;
+                case "--seconds": test.seconds = Integer.parseInt(args[++i]); break;
+                case "--seed": test.seed = Long.parseLong(args[++i]); break;
+            }
+        }
+        System.exit(test.run() ? 0 : 1);
+    }
+}
@@ -0,0 +1,220 @@
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Index of tasks by due date
+ * Tasks are kept in one bucket per due day, and the buckets are kept sorted by day, so the
+ * tasks due in a window of days are found in O(log n + k) without looking at other tasks.
+ * The tasks of a day are kept in the order they were indexed, so results do not change from
+ * run to run. Each bucket counts its incomplete tasks, so queries that only want incomplete
+ * tasks skip the days where every task is done. Tasks without a due date are not indexed
+ */
+public class DueDateIndex {
+
+    /**
+     * Buckets of tasks by their due date as epoch day
+     */
+    private NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+
+    /**
+     * Sequence number of every indexed task, by identity since tasks are equal by name. A task
+     * keeps its number when its due date or status changes
+     */
+    private Map<Task, Long> sequences = new IdentityHashMap<>();
+
+    /**
+     * Sequence number given to the next task indexed
+     */
+    private long nextSequence;
+
+    /**
+     * Tasks due on one day by their sequence number
+     */
+    private static class Bucket {
+        private NavigableMap<Long, Task> tasks = new TreeMap<>();
+        private int incompleteCount;
+
+        private int count(boolean includeDone) {
+            return includeDone ? tasks.size() : incompleteCount;
+        }
+    }
+
+    /**
+     * Method to add a task to the index
+     * @param task - task to be indexed
+     */
+    public void add(Task task) {
+        if(task.getDueDate() == null)
+            return;
+        Long sequence = nextSequence++;
+        sequences.put(task, sequence);
+        add(task, sequence, task.getDueDate());
+    }
+
+    /**
+     * Method to remove a task from the index
+     * @param task - task to be removed
+     */
+    public void remove(Task task) {
+        Long sequence = sequences.remove(task);
+        if(sequence != null)
+            remove(task, sequence, task.getDueDate(), task.isDone());
+    }
+
+    /**
+     * Method to move a task to its new due date, the task keeps its place among the tasks
+     * of the new day
+     * @param task - task with the new due date
+     * @param oldDate - due date the task is indexed under
+     */
+    public void dueDateChanged(Task task, LocalDate oldDate) {
+        Long sequence = sequences.get(task);
+        if(sequence == null) {
+            add(task);
+            return;
+        }
+        remove(task, sequence, oldDate, task.isDone());
+        if(task.getDueDate() == null)
+            sequences.remove(task);
+        else
+            add(task, sequence, task.getDueDate());
+    }
+
+    /**
+     * Method to update the incomplete count of the day of a task after it was marked done
+     * or not done
+     * @param task - task with the new status
+     */
+    public void doneChanged(Task task) {
+        if(task.getDueDate() == null || !sequences.containsKey(task))
+            return;
+        Bucket bucket = buckets.get(task.getDueDate().toEpochDay());
+        bucket.incompleteCount += task.isDone() ? -1 : 1;
+    }
+
+    /**
+     * Method to collect the tasks due in a window of days, in order of due date
+     * @param from - first due date, inclusive, or null for no lower bound
+     * @param to - last due date, inclusive, or null for no upper bound
+     * @param includeDone - true to also collect the completed tasks
+     * @param limit - largest number of tasks to collect
+     * @param into - list the tasks are added to
+     */
+    public void collect(LocalDate from, LocalDate to, boolean includeDone, int limit, ListAdt<Task> into) {
+        int collected = 0;
+        for (Bucket bucket : window(from, to).values()) {
+            if(bucket.count(includeDone) == 0)
+                continue;
+            for (Task task : bucket.tasks.values()) {
+                if(!includeDone && task.isDone())
+                    continue;
+                if(collected++ == limit)
+                    return;
+                into.addItem(task);
+            }
+        }
+    }
+
+    /**
+     * Method to count the tasks due in a window of days, stopping once the count passes the cap
+     * @param from - first due date, inclusive, or null for no lower bound
+     * @param to - last due date, inclusive, or null for no upper bound
+     * @param includeDone - true to also count the completed tasks
+     * @param cap - count after which counting stops
+     * @return number of tasks due in the window, or a number above cap
+     */
+    public int count(LocalDate from, LocalDate to, boolean includeDone, int cap) {
+        int count = 0;
+        for (Bucket bucket : window(from, to).values()) {
+            count += bucket.count(includeDone);
+            if(count > cap)
+                break;
+        }
+        return count;
+    }
+
+    /**
+     * Method to iterate lazily over the tasks due in a window of days, in order of due date.
+     * The iterator fails if the index changes while it is used
+     * @param from - first due date, inclusive, or null for no lower bound
+     * @param to - last due date, inclusive, or null for no upper bound
+     * @param includeDone - true to also include the completed tasks
+     * @return iterator over the tasks
+     */
+    public Iterator<Task> iterator(LocalDate from, LocalDate to, boolean includeDone) {
+        Iterator<Bucket> days = window(from, to).values().iterator();
+        return new Iterator<Task>() {
+            private Iterator<Task> tasks = Collections.emptyIterator();
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if(tasks.hasNext()) {
+                        Task task = tasks.next();
+                        if(includeDone || !task.isDone())
+                            next = task;
+                    } else if(days.hasNext()) {
+                        Bucket bucket = days.next();
+                        if(bucket.count(includeDone) > 0)
+                            tasks = bucket.tasks.values().iterator();
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                Task task = next;
+                next = null;
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Method to get the buckets of a window of days, a window ending before it starts is empty
+     * @param from - first due date, inclusive, or null for no lower bound
+     * @param to - last due date, inclusive, or null for no upper bound
+     * @return buckets due in the window
+     */
+    private NavigableMap<Long, Bucket> window(LocalDate from, LocalDate to) {
+        if(from != null && to != null && from.isAfter(to))
+            return Collections.emptyNavigableMap();
+        NavigableMap<Long, Bucket> window = buckets;
+        if(from != null)
+            window = window.tailMap(from.toEpochDay(), true);
+        if(to != null)
+            window = window.headMap(to.toEpochDay(), true);
+        return window;
+    }
+
+    private void add(Task task, Long sequence, LocalDate dueDate) {
+        Bucket bucket = buckets.computeIfAbsent(dueDate.toEpochDay(), day -> new Bucket());
+        bucket.tasks.put(sequence, task);
+        if(!task.isDone())
+            bucket.incompleteCount++;
+    }
+
+    private void remove(Task task, Long sequence, LocalDate dueDate, boolean done) {
+        if(dueDate == null)
+            return;
+        Bucket bucket = buckets.get(dueDate.toEpochDay());
+        if(bucket == null || bucket.tasks.remove(sequence) == null)
+            return;
+        if(!done)
+            bucket.incompleteCount--;
+        if(bucket.tasks.isEmpty())
+            buckets.remove(dueDate.toEpochDay());
+    }
+}
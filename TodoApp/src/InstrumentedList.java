@@ -0,0 +1,171 @@
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+/**
+ * List decorator that measures every call made to the list it wraps
+ * The latency of each operation is recorded in a histogram named after the list and the
+ * operation, and the size, array capacity and resize count of the wrapped list are published
+ * with the histograms. Iteration is passed through without being measured
+ * @param <E>
+ */
+public class InstrumentedList<E> implements ListAdt<E>, InstrumentedListMBean {
+
+    /**
+     * List that is measured
+     */
+    private final ListAdt<E> list;
+
+    // Histograms of the measured operations
+    private final LatencyHistogram addItem;
+    private final LatencyHistogram insertItem;
+    private final LatencyHistogram removeItem;
+    private final LatencyHistogram getItem;
+    private final LatencyHistogram setItem;
+    private final LatencyHistogram contains;
+    private final LatencyHistogram addAll;
+    private final LatencyHistogram removeIf;
+
+    /**
+     * Constructor to wrap a list and publish its metrics under the given name
+     * @param name - name of the list in the metrics
+     * @param list - list to be measured
+     */
+    public InstrumentedList(String name, ListAdt<E> list) {
+        this.list = list;
+        this.addItem = Metrics.histogram(name + ".addItem");
+        this.insertItem = Metrics.histogram(name + ".insertItem");
+        this.removeItem = Metrics.histogram(name + ".removeItem");
+        this.getItem = Metrics.histogram(name + ".getItem");
+        this.setItem = Metrics.histogram(name + ".setItem");
+        this.contains = Metrics.histogram(name + ".contains");
+        this.addAll = Metrics.histogram(name + ".addAll");
+        this.removeIf = Metrics.histogram(name + ".removeIf");
+        Metrics.register(name, this);
+    }
+
+    @Override
+    public void addItem(E item) {
+        long start = System.nanoTime();
+        try {
+            list.addItem(item);
+        } finally {
+            addItem.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        long start = System.nanoTime();
+        try {
+            list.insertItem(index, item);
+        } finally {
+            insertItem.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E removeItem(int index) throws IndexOutOfBoundsException {
+        long start = System.nanoTime();
+        try {
+            return list.removeItem(index);
+        } finally {
+            removeItem.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E getItem(int index) throws IndexOutOfBoundsException {
+        long start = System.nanoTime();
+        try {
+            return list.getItem(index);
+        } finally {
+            getItem.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E setItem(int index, E item) throws IndexOutOfBoundsException {
+        long start = System.nanoTime();
+        try {
+            return list.setItem(index, item);
+        } finally {
+            setItem.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.isEmpty();
+    }
+
+    @Override
+    public boolean contains(E item) {
+        long start = System.nanoTime();
+        try {
+            return list.contains(item);
+        } finally {
+            contains.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void addAll(ListAdt<? extends E> items) {
+        long start = System.nanoTime();
+        try {
+            list.addAll(items);
+        } finally {
+            addAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int removeIf(Predicate<? super E> filter) {
+        long start = System.nanoTime();
+        try {
+            return list.removeIf(filter);
+        } finally {
+            removeIf.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        list.ensureCapacity(minCapacity);
+    }
+
+    @Override
+    public void trimToSize() {
+        list.trimToSize();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return list.iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return list.spliterator();
+    }
+
+    @Override
+    public int getSize() {
+        return list.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return list instanceof ArrayList ? ((ArrayList<E>) list).capacity() : -1;
+    }
+
+    @Override
+    public int getResizeCount() {
+        return list instanceof ArrayList ? ((ArrayList<E>) list).resizeCount() : -1;
+    }
+}
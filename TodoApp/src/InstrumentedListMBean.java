@@ -0,0 +1,20 @@
+/**
+ * Management interface of an instrumented list, published through JMX
+ */
+public interface InstrumentedListMBean {
+
+    /**
+     * @return number of items in the list
+     */
+    int getSize();
+
+    /**
+     * @return number of items the backing array holds before it grows, -1 if the list has no single array
+     */
+    int getCapacity();
+
+    /**
+     * @return number of times the backing array was resized, -1 if the list has no single array
+     */
+    int getResizeCount();
+}
@@ -0,0 +1,192 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helper to write tasks as JSON and to read the flat JSON objects sent by clients
+ * Only what the task server needs is supported: objects with string, number, boolean and
+ * null values, without nested objects or arrays
+ */
+public class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Method to append a task as a JSON object
+     * @param out - buffer the object is appended to
+     * @param index - 1 based index of the task, 0 to leave it out
+     * @param task - task to be written
+     */
+    public static void appendTask(StringBuilder out, int index, Task task) {
+        out.append('{');
+        if(index > 0)
+            out.append("\"index\":").append(index).append(',');
+        out.append("\"name\":");
+        appendString(out, task.getName());
+        out.append(",\"dueDate\":");
+        if(task.getDueDate() == null)
+            out.append("null");
+        else
+            out.append('"').append(task.getDueDate()).append('"');
+        out.append(",\"done\":").append(task.isDone()).append('}');
+    }
+
+    /**
+     * Method to append a string as a quoted and escaped JSON string
+     * @param out - buffer the string is appended to
+     * @param value - string to be written, may be null
+     */
+    public static void appendString(StringBuilder out, String value) {
+        if(value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if(c < 0x20)
+                        out.append(String.format("\\u%04x", (int) c));
+                    else
+                        out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Method to read a flat JSON object
+     * @param text - JSON text of the object
+     * @return values by key, strings as String, numbers as Double, booleans as Boolean and null as null
+     * @throws IllegalArgumentException - if the text is not a flat JSON object
+     */
+    public static Map<String, Object> parseObject(String text) throws IllegalArgumentException {
+        Parser parser = new Parser(text);
+        Map<String, Object> values = new HashMap<>();
+        parser.expect('{');
+        if(!parser.skip('}')) {
+            do {
+                String key = parser.readString();
+                parser.expect(':');
+                values.put(key, parser.readValue());
+            } while (parser.skip(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return values;
+    }
+
+    /**
+     * Reader of JSON text, one token at a time
+     */
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private void skipSpace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean skip(char c) {
+            skipSpace();
+            if(position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if(!skip(c))
+                throw error("'" + c + "' expected");
+        }
+
+        private void end() {
+            skipSpace();
+            if(position < text.length())
+                throw error("unexpected text after the object");
+        }
+
+        private Object readValue() {
+            skipSpace();
+            if(position >= text.length())
+                throw error("value expected");
+            char c = text.charAt(position);
+            if(c == '"')
+                return readString();
+            if(text.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if(text.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if(text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            while (position < text.length() && "+-.eE0123456789".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, position));
+            } catch (NumberFormatException ex) {
+                throw error("invalid value");
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if(c == '"')
+                    return value.toString();
+                if(c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if(position >= text.length())
+                    break;
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if(position + 4 > text.length())
+                            throw error("invalid escape");
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("invalid escape");
+                        }
+                        position += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at " + position + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of operation latencies with logarithmic buckets
+ * Every power of two range of nanoseconds is split in four buckets, so a bucket is never wider
+ * than a quarter of its values and all of a long fits in 256 buckets. Recording a latency is a
+ * few atomic increments on preallocated arrays and never allocates, so it can be called from
+ * hot paths and from many threads at once
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /**
+     * Number of buckets per power of two, as a number of bits
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Name of the measured operation
+     */
+    private final String name;
+
+    /**
+     * Number of latencies recorded in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Constructor to create an empty histogram
+     * @param name - name of the measured operation
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Method to record one latency
+     * @param nanos - latency in nanoseconds, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        if(nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Method to get the bucket of a latency
+     * @param nanos - latency, not negative
+     * @return index of the bucket
+     */
+    private static int bucketOf(long nanos) {
+        if(nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Method to get the largest latency of a bucket
+     * @param bucket - index of the bucket
+     * @return largest latency in nanoseconds that falls in the bucket
+     */
+    private static long bucketLimit(int bucket) {
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long next = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /**
+     * Method to estimate a percentile of the recorded latencies, the estimate is the upper
+     * limit of the bucket holding the percentile and is never above the largest latency
+     * @param fraction - percentile as a fraction between 0 and 1
+     * @return latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentileNanos(double fraction) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if(total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if(seen >= rank)
+                return Math.min(bucketLimit(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long calls = count.get();
+        return calls == 0 ? 0 : totalNanos.get() / 1000.0 / calls;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentileNanos(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return totalNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Method to add the latencies recorded by another histogram to this one
+     * @param other - histogram whose latencies are added, it is not changed
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = other.counts.get(i);
+            if(bucketCount > 0)
+                counts.addAndGet(i, bucketCount);
+        }
+        count.addAndGet(other.count.get());
+        totalNanos.addAndGet(other.totalNanos.get());
+        long otherMax = other.maxNanos.get();
+        long max = maxNanos.get();
+        while (otherMax > max && !maxNanos.compareAndSet(max, otherMax)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Method to clear all recorded latencies
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Management interface of a latency histogram, published through JMX
+ */
+public interface LatencyHistogramMBean {
+
+    /**
+     * @return number of recorded calls
+     */
+    long getCount();
+
+    /**
+     * @return mean latency in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * @return estimated median latency in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * @return estimated 90th percentile latency in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * @return estimated 99th percentile latency in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * @return largest latency in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * @return time spent in all recorded calls in milliseconds
+     */
+    double getTotalMillis();
+
+    /**
+     * Method to clear all recorded latencies
+     */
+    void reset();
+}
@@ -1,14 +1,31 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Interface for List - ordered list of items
  * @param <E> - type of elements in the list
  */
-public interface ListAdt<E> {
+public interface ListAdt<E> extends Iterable<E> {
     /**
      * Method to add new item to the list
      * @param item - new item to be added
      */
     void addItem(E item);
 
+    /**
+     * Method to insert an item at a given index, moving the item at that index and all
+     * later items one place up
+     * @param index - index where the item needs to be inserted, size of the list to add at the end
+     * @param item - new item to be inserted
+     * @throws IndexOutOfBoundsException - if index out of the list size
+     */
+    void insertItem(int index, E item) throws IndexOutOfBoundsException;
+
     /**
      * Method to remove an item from the list
      * @param index - index of the item to be removed
@@ -52,4 +69,103 @@ public interface ListAdt<E> {
      * @return - return true if the element exists
      */
     boolean contains(E item);
+
+    /**
+     * Method to add all items of another list at the end of this list, in order
+     * @param items - items to be added
+     */
+    default void addAll(ListAdt<? extends E> items) {
+        ensureCapacity(size() + items.size());
+        for (int i = 0; i < items.size(); i++) {
+            addItem(items.getItem(i));
+        }
+    }
+
+    /**
+     * Method to remove every item matching the given filter. The filter is called exactly
+     * once for every item, in list order
+     * @param filter - returns true for the items to be removed
+     * @return number of items removed
+     */
+    default int removeIf(Predicate<? super E> filter) {
+        boolean[] matches = new boolean[size()];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = filter.test(getItem(i));
+        }
+        int removed = 0;
+        for (int i = matches.length - 1; i >= 0; i--) {
+            if(matches[i]) {
+                removeItem(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Method to make room for at least the given number of items, so adding up to that many
+     * items does not need to grow the list again. Lists that do not reserve room ignore it
+     * @param minCapacity - number of items the list should be able to hold
+     */
+    default void ensureCapacity(int minCapacity) {
+    }
+
+    /**
+     * Method to release the room reserved beyond the current size of the list. Lists that do
+     * not reserve room ignore it
+     */
+    default void trimToSize() {
+    }
+
+    /**
+     * Method to get an iterator over the items in list order. The default iterator reads the
+     * items by index and fails if the list size changes while iterating
+     * @return iterator over the items
+     */
+    @Override
+    default Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            private final int expectedSize = size();
+
+            @Override
+            public boolean hasNext() {
+                return index < expectedSize;
+            }
+
+            @Override
+            public E next() {
+                if(size() != expectedSize)
+                    throw new ConcurrentModificationException();
+                if(index >= expectedSize)
+                    throw new NoSuchElementException();
+                return getItem(index++);
+            }
+        };
+    }
+
+    /**
+     * Method to get a sized spliterator over the items that splits the list by index
+     * @return spliterator over the items
+     */
+    @Override
+    default Spliterator<E> spliterator() {
+        return new ListSpliterator<>(this);
+    }
+
+    /**
+     * Method to get a sequential stream of the items
+     * @return stream of the items
+     */
+    default Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Method to get a parallel stream of the items, run on the common fork join pool
+     * @return parallel stream of the items
+     */
+    default Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -0,0 +1,435 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark harness for the list implementations and the TodoList queries
+ * Every benchmark is run for a few warmup rounds and then measured over several rounds at each
+ * list size. For each benchmark the time per operation, the bytes allocated per operation and
+ * the garbage collections during the measured rounds are reported, so results can be compared
+ * between list implementations and between versions of the code. The task construction
+ * benchmarks compare building tasks through the setters with the task factory, and the search
+ * benchmarks measure name searches of a few kinds
+ *
+ * Usage: java ListBenchmark [--sizes 1000,10000,...] [--lists array,tiered,concurrent,persistent] [--rounds n]
+ */
+public class ListBenchmark {
+
+    /**
+     * Default list sizes to benchmark
+     */
+    private static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    /**
+     * Default list implementations to benchmark
+     */
+    private static final String[] DEFAULT_LISTS = {"array", "tiered", "concurrent", "persistent"};
+
+    /**
+     * Number of elements touched per round by operations that cost O(n) each, the number of
+     * operations per round is this divided by the list size
+     */
+    private static final long LINEAR_WORK_PER_ROUND = 20_000_000L;
+
+    /**
+     * Number of warmup rounds run before measuring
+     */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Due date given to all benchmark tasks
+     */
+    private static final LocalDate DUE_DATE = LocalDate.of(2099, 1, 1);
+
+    /**
+     * Number of distinct names of the tasks built by the construction benchmarks
+     */
+    private static final int NAME_VARIETY = 1000;
+
+    /**
+     * Words the names of the search benchmark tasks are made of
+     */
+    private static final String[] NAME_WORDS = {"write", "review", "deploy", "report", "fix", "bug", "call",
+            "email", "plan", "meeting", "docs", "test", "the", "budget", "order", "update"};
+
+    /**
+     * Fragments searched by the search benchmark: an exact name, long and short prefixes, a
+     * trigram in most names, a common word and a rare number
+     */
+    private static final String[][] SEARCHES = {{"exact", searchName(424)},
+            {"prefix", "review the"}, {"short prefix", "re"}, {"common trigram", "ort"},
+            {"common word", "the"}, {"rare", "31337"}};
+
+    /**
+     * Due date texts of the construction benchmarks by month and day
+     */
+    private static final String[][] DATE_TEXTS = new String[12][28];
+    static {
+        for (int month = 0; month < 12; month++) {
+            for (int day = 0; day < 28; day++) {
+                DATE_TEXTS[month][day] = LocalDate.of(2099, month + 1, day + 1).toString();
+            }
+        }
+    }
+
+    /**
+     * Sink for benchmark results so the work cannot be optimized away
+     */
+    private static volatile long sink;
+
+    /**
+     * Number of measured rounds per benchmark
+     */
+    private int rounds = 5;
+
+    /**
+     * Interface of one benchmark round
+     */
+    private interface Round {
+        /**
+         * Method to prepare the state of a round, not measured
+         * @return state used by the measured part
+         */
+        Object setup();
+
+        /**
+         * Method to run the measured part of a round
+         * @param state - state returned by setup
+         * @return number of operations done
+         */
+        long run(Object state);
+    }
+
+    /**
+     * Method to create an empty list of the given type
+     * @param listType - array, tiered, concurrent or persistent
+     * @return empty list
+     */
+    private static ListAdt<Task> createList(String listType) {
+        switch (listType) {
+            case "array": return new ArrayList<>();
+            case "tiered": return new TieredArrayList<>();
+            case "concurrent": return new ConcurrentArrayList<>();
+            case "persistent": return new SnapshotList<>();
+            default: throw new IllegalArgumentException("Unknown list type : " + listType);
+        }
+    }
+
+    /**
+     * Method to create a list of the given type filled with tasks, every third task marked done
+     * @param listType - type of the list
+     * @param size - number of tasks
+     * @return filled list
+     */
+    private static ListAdt<Task> filledList(String listType, int size) {
+        ListAdt<Task> list = createList(listType);
+        for (int i = 0; i < size; i++) {
+            list.addItem(task(i));
+        }
+        return list;
+    }
+
+    private static Task task(int i) {
+        Task task = new Task("task-" + i, DUE_DATE);
+        task.setDone(i % 3 == 0);
+        return task;
+    }
+
+    /**
+     * Method to run the list benchmarks for one list type and size
+     * @param listType - type of the list
+     * @param size - size of the list
+     */
+    private void benchmarkList(String listType, int size) {
+        int linearOps = (int) Math.max(1, Math.min(size, LINEAR_WORK_PER_ROUND / size));
+
+        measure(listType, size, "addItem", new Round() {
+            public Object setup() { return null; }
+            public long run(Object state) {
+                ListAdt<Task> list = createList(listType);
+                Task task = task(0);
+                for (int i = 0; i < size; i++) {
+                    list.addItem(task);
+                }
+                sink += list.size();
+                return size;
+            }
+        });
+        measure(listType, size, "removeItem head", removeRound(listType, size, linearOps, 0));
+        measure(listType, size, "removeItem middle", removeRound(listType, size, linearOps, size / 2));
+        measure(listType, size, "removeItem tail", removeRound(listType, size, Math.min(size, 100_000), -1));
+        measure(listType, size, "getItem", new Round() {
+            public Object setup() { return filledList(listType, size); }
+            public long run(Object state) {
+                ListAdt<Task> list = (ListAdt<Task>) state;
+                long done = 0;
+                for (int i = 0; i < list.size(); i++) {
+                    if(list.getItem(i).isDone())
+                        done++;
+                }
+                sink += done;
+                return size;
+            }
+        });
+        measure(listType, size, "contains miss", new Round() {
+            public Object setup() { return filledList(listType, size); }
+            public long run(Object state) {
+                ListAdt<Task> list = (ListAdt<Task>) state;
+                Task missing = new Task("missing", DUE_DATE);
+                for (int i = 0; i < linearOps; i++) {
+                    if(list.contains(missing))
+                        sink++;
+                }
+                return linearOps;
+            }
+        });
+    }
+
+    /**
+     * Method to create a round that removes items at a fixed index, -1 for the tail
+     */
+    private Round removeRound(String listType, int size, int ops, int index) {
+        return new Round() {
+            public Object setup() { return filledList(listType, size); }
+            public long run(Object state) {
+                ListAdt<Task> list = (ListAdt<Task>) state;
+                for (int i = 0; i < ops; i++) {
+                    int at = index < 0 ? list.size() - 1 : Math.min(index, list.size() - 1);
+                    sink += list.removeItem(at) == null ? 0 : 1;
+                }
+                return ops;
+            }
+        };
+    }
+
+    /**
+     * Method to run the task construction benchmarks, building tasks from text as a bulk load
+     * does, once through the setters and once through the task factory
+     * @param size - number of tasks built per round
+     */
+    private void benchmarkConstruction(int size) {
+        measure("task", size, "setters", new Round() {
+            public Object setup() { return new StringBuilder(); }
+            public long run(Object state) {
+                StringBuilder text = (StringBuilder) state;
+                for (int i = 0; i < size; i++) {
+                    text.setLength(0);
+                    text.append("task-").append(i % NAME_VARIETY);
+                    Task task = new Task();
+                    task.setName(text.toString());
+                    task.setDueDate(LocalDate.parse(dateText(i)));
+                    task.setDone(i % 3 == 0);
+                    sink += task.getName().length();
+                }
+                return size;
+            }
+        });
+        measure("task", size, "factory", new Round() {
+            public Object setup() { return new StringBuilder(); }
+            public long run(Object state) {
+                StringBuilder text = (StringBuilder) state;
+                TaskFactory factory = TaskFactory.shared();
+                TaskFactory.Builder builder = factory.builder();
+                for (int i = 0; i < size; i++) {
+                    text.setLength(0);
+                    text.append("task-").append(i % NAME_VARIETY);
+                    Task task = builder.name(text).dueDate(factory.date(2099, 1 + i % 12, 1 + i % 28))
+                            .done(i % 3 == 0).build();
+                    sink += task.getName().length();
+                }
+                return size;
+            }
+        });
+    }
+
+    /**
+     * Method to get the due date text of the i-th task of the construction benchmark, from a
+     * fixed set of texts so the text itself is not measured
+     */
+    private static String dateText(int i) {
+        return DATE_TEXTS[i % 12][i % 28];
+    }
+
+    /**
+     * Method to run the TodoList query benchmarks over a task list backed by one list type
+     * @param listType - type of the backing list
+     * @param size - size of the list
+     */
+    private void benchmarkQueries(String listType, int size) {
+        Supplier<TaskList> filled = () -> {
+            TaskList taskList = new TaskList(createList(listType));
+            for (int i = 0; i < size; i++) {
+                taskList.addItem(task(i));
+            }
+            return taskList;
+        };
+        measure(listType, size, "completedCount", new Round() {
+            public Object setup() { return filled.get(); }
+            public long run(Object state) {
+                TaskList taskList = (TaskList) state;
+                for (int i = 0; i < 1000; i++) {
+                    sink += taskList.completedCount();
+                }
+                return 1000;
+            }
+        });
+        measure(listType, size, "completed view scan", new Round() {
+            public Object setup() { return filled.get(); }
+            public long run(Object state) {
+                ListAdt<Task> completed = ((TaskList) state).completedTasks();
+                for (int i = 0; i < completed.size(); i++) {
+                    sink += completed.getItem(i).getDueDate().getDayOfMonth();
+                }
+                return completed.size();
+            }
+        });
+        measure(listType, size, "findByName", new Round() {
+            public Object setup() { return filled.get(); }
+            public long run(Object state) {
+                TaskList taskList = (TaskList) state;
+                for (int i = 0; i < 1000; i++) {
+                    if(taskList.findByName("TASK-" + (i * 7919 % size)) != null)
+                        sink++;
+                }
+                return 1000;
+            }
+        });
+    }
+
+    /**
+     * Method to run the name search benchmarks over a task list of distinct names made of a
+     * few words and a number, ten results per search
+     * @param size - size of the list
+     */
+    private void benchmarkSearch(int size) {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < size; i++) {
+            taskList.addItem(new Task(searchName(i), DUE_DATE));
+        }
+        // the first search builds the index
+        sink += taskList.search("", 1).size();
+        for (String[] search : SEARCHES) {
+            measure("search", size, search[0], new Round() {
+                public Object setup() { return taskList; }
+                public long run(Object state) {
+                    for (int i = 0; i < 1000; i++) {
+                        sink += ((TaskList) state).search(search[1], 10).size();
+                    }
+                    return 1000;
+                }
+            });
+        }
+        measure("search", size, "query name contains", new Round() {
+            public Object setup() { return taskList; }
+            public long run(Object state) {
+                for (int i = 0; i < 100; i++) {
+                    sink += ((TaskList) state).query().nameContains("report 42").limit(10).run().size();
+                }
+                return 100;
+            }
+        });
+    }
+
+    private static String searchName(int i) {
+        int words = i * 7919;
+        return NAME_WORDS[words & 15] + " " + NAME_WORDS[(words >>> 4) & 15] + " " + NAME_WORDS[(words >>> 8) & 15] + " " + i;
+    }
+
+    /**
+     * Method to warm up and measure one benchmark and print its result
+     * @param listType - type of the list
+     * @param size - size of the list
+     * @param name - name of the benchmark
+     * @param round - benchmark round
+     */
+    private void measure(String listType, int size, String name, Round round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run(round.setup());
+        }
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (int i = 0; i < rounds; i++) {
+            Object state = round.setup();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            totalOps += round.run(state);
+            totalNanos += System.nanoTime() - start;
+            totalBytes += allocatedBytes() - bytesBefore;
+            gcCount += gcCount() - gcCountBefore;
+            gcMillis += gcMillis() - gcMillisBefore;
+        }
+        System.out.format("%-8s %10d  %-22s %14.1f ns/op %12.1f B/op %6d gc %8d gc ms%n", listType, size, name,
+                (double) totalNanos / totalOps, totalBytes < 0 ? Double.NaN : (double) totalBytes / totalOps,
+                gcCount, gcMillis);
+    }
+
+    /**
+     * Method to get the bytes allocated so far by the current thread
+     * @return allocated bytes, or -1 if the JVM cannot report it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Method to parse a comma separated list of sizes
+     */
+    private static int[] parseSizes(String value) {
+        String[] parts = value.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    /**
+     * Main function of the benchmark
+     * @param args
+     */
+    public static void main(String args[]) {
+        ListBenchmark benchmark = new ListBenchmark();
+        int[] sizes = DEFAULT_SIZES;
+        String[] lists = DEFAULT_LISTS;
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--sizes": sizes = parseSizes(args[++i]); break;
+                case "--lists": lists = args[++i].split(","); break;
+                case "--rounds": benchmark.rounds = Integer.parseInt(args[++i]); break;
+            }
+        }
+        for (int size : sizes) {
+            benchmark.benchmarkConstruction(size);
+            benchmark.benchmarkSearch(size);
+            for (String listType : lists) {
+                benchmark.benchmarkList(listType, size);
+                benchmark.benchmarkQueries(listType, size);
+            }
+        }
+    }
+}
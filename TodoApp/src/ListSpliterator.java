@@ -0,0 +1,105 @@
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over any list by index
+ * The range is split in halves, so lists with fast getItem can be traversed in parallel.
+ * The list size is checked after traversal, so adding or removing items while the list is
+ * being traversed is reported with a ConcurrentModificationException
+ * @param <E> - type of elements in the list
+ */
+public class ListSpliterator<E> implements Spliterator<E> {
+
+    /**
+     * List being traversed
+     */
+    private final ListAdt<E> list;
+
+    /**
+     * Index of the next item
+     */
+    private int index;
+
+    /**
+     * Index after the last item, -1 until the spliterator is first used
+     */
+    private int fence;
+
+    /**
+     * Size of the list when the fence was set
+     */
+    private int expectedSize;
+
+    /**
+     * Constructor to create a spliterator over the whole list
+     * @param list - list to be traversed
+     */
+    public ListSpliterator(ListAdt<E> list) {
+        this(list, 0, -1, 0);
+    }
+
+    private ListSpliterator(ListAdt<E> list, int index, int fence, int expectedSize) {
+        this.list = list;
+        this.index = index;
+        this.fence = fence;
+        this.expectedSize = expectedSize;
+    }
+
+    /**
+     * Method to get the fence, reading the list size on first use
+     * @return index after the last item
+     */
+    private int getFence() {
+        if(fence < 0) {
+            expectedSize = list.size();
+            fence = expectedSize;
+        }
+        return fence;
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        int hi = getFence();
+        int mid = (index + hi) >>> 1;
+        if(index >= mid)
+            return null;
+        ListSpliterator<E> prefix = new ListSpliterator<>(list, index, mid, expectedSize);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        int hi = getFence();
+        if(index >= hi)
+            return false;
+        action.accept(list.getItem(index++));
+        checkSize();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        int hi = getFence();
+        for (; index < hi; index++) {
+            action.accept(list.getItem(index));
+        }
+        checkSize();
+    }
+
+    @Override
+    public long estimateSize() {
+        return getFence() - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+
+    private void checkSize() {
+        if(list.size() != expectedSize)
+            throw new ConcurrentModificationException();
+    }
+}
@@ -0,0 +1,108 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the latency histograms, instrumented lists and replication followers of the application
+ * Every histogram, list and follower is published as an MBean under the TodoApp domain when it is
+ * created, so it can be read with any JMX client, and all of them can be printed as text
+ */
+public class Metrics {
+
+    /**
+     * Domain of the published MBeans
+     */
+    private static final String DOMAIN = "TodoApp";
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, InstrumentedList<?>> lists = new ConcurrentHashMap<>();
+    private static final Map<String, ReplicationFollower> followers = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Method to get the histogram of an operation, creating and publishing it on first use
+     * @param name - name of the operation
+     * @return histogram of the operation
+     */
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if(histogram != null)
+            return histogram;
+        return histograms.computeIfAbsent(name, key -> {
+            LatencyHistogram created = new LatencyHistogram(key);
+            publish("Latency", key, created);
+            return created;
+        });
+    }
+
+    /**
+     * Method to publish an instrumented list, a list published under the same name replaces it
+     * @param name - name of the list
+     * @param list - list to be published
+     */
+    static void register(String name, InstrumentedList<?> list) {
+        lists.put(name, list);
+        publish("List", name, list);
+    }
+
+    /**
+     * Method to publish a replication follower, a follower published under the same name replaces it
+     * @param name - name of the follower
+     * @param follower - follower to be published
+     */
+    static void register(String name, ReplicationFollower follower) {
+        followers.put(name, follower);
+        publish("Replication", name, follower);
+    }
+
+    /**
+     * Method to register an MBean, replacing one already registered under the same name.
+     * Failures are ignored since the metrics are still available as text
+     */
+    private static void publish(String type, String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if(server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+            server.registerMBean(bean, objectName);
+        } catch (JMException | SecurityException ex) {
+            // metrics stay available through dump
+        }
+    }
+
+    /**
+     * Method to write all metrics as a text table, operations sorted by name
+     * @param out - where the table is written
+     */
+    public static void dump(StringBuilder out) {
+        out.append(String.format("%-28s %10s %10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "Total ms",
+                "Mean us", "p50 us", "p90 us", "p99 us", "Max us"));
+        for (LatencyHistogram histogram : new TreeMap<>(histograms).values()) {
+            if(histogram.getCount() == 0)
+                continue;
+            out.append(String.format("%-28s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n", histogram.getName(),
+                    histogram.getCount(), histogram.getTotalMillis(), histogram.getMeanMicros(),
+                    histogram.getP50Micros(), histogram.getP90Micros(), histogram.getP99Micros(),
+                    histogram.getMaxMicros()));
+        }
+        for (Map.Entry<String, InstrumentedList<?>> list : new TreeMap<>(lists).entrySet()) {
+            InstrumentedList<?> instrumented = list.getValue();
+            out.append(String.format("List %s: size %d, capacity %d, resizes %d%n", list.getKey(),
+                    instrumented.getSize(), instrumented.getCapacity(), instrumented.getResizeCount()));
+        }
+        for (Map.Entry<String, ReplicationFollower> follower : new TreeMap<>(followers).entrySet()) {
+            ReplicationFollower replication = follower.getValue();
+            out.append(String.format("Follower %s: %s, applied %d, lag %d changes %d ms, snapshots %d%n",
+                    follower.getKey(), replication.isConnected() ? "connected" : "disconnected",
+                    replication.getAppliedSequence(), replication.getLagChanges(), replication.getLagMillis(),
+                    replication.getSnapshotCount()));
+        }
+    }
+}
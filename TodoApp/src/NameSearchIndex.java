@@ -0,0 +1,500 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Index for searching tasks by fragments of their name, ignoring case
+ * Only the distinct case folded names are indexed, the tasks of a name are read from the name
+ * index of the list, so the index costs nothing per task. Each name has a number listed in int
+ * posting lists: one for each of its three letter sequences (trigrams) and one for each of its
+ * first one, two and three letters. Searches intersect the posting lists of the query, shortest
+ * first, and only check the names listed in all of them: a prefix search intersects the list of
+ * the first letters of the query with the lists of its trigrams, a substring search the lists
+ * of its trigrams.
+ * Names are numbered in rank order, shorter names first, whenever the index is renumbered, and
+ * names added since get the next numbers. Reading the candidates in number order gives the
+ * ranked names best first, so a search stops after enough matches and only checks every
+ * candidate among the names added since the last renumbering. Removed names are only marked.
+ * The index is renumbered once the removed names outnumber the live ones or the names added
+ * since the last renumbering are more than an eighth of them. Results are ranked with exact
+ * matches first, then prefix matches, then other substring matches, shorter names first
+ */
+public class NameSearchIndex {
+
+    /**
+     * Number of removed or added names from which the index may be renumbered
+     */
+    private static final int MIN_RENUMBER = 1024;
+
+    /**
+     * Share of the live names the names added since the last renumbering may reach, as a divisor
+     */
+    private static final int UNRANKED_SHARE = 8;
+
+    /**
+     * Ranks names by length and then by name
+     */
+    private static final Comparator<String> BY_LENGTH = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Tasks by case folded name, owned by the list and read only here
+     */
+    private final Map<String, ListAdt<Task>> tasksByName;
+
+    /**
+     * Names by number, null for the numbers of removed names
+     */
+    private String[] names;
+
+    /**
+     * Number of numbers given out, numbers below rankedCount are in rank order, and number of
+     * them that belong to removed names
+     */
+    private int numberCount;
+    private int rankedCount;
+    private int removedCount;
+
+    /**
+     * Number of each live name
+     */
+    private final Map<String, Integer> numbers = new HashMap<>();
+
+    /**
+     * Posting lists of name numbers by trigram and by first letters, in increasing order of number
+     */
+    private PostingTable grams;
+
+    /**
+     * Growable list of name numbers
+     */
+    private static class Posting {
+        private int[] numbers = new int[2];
+        private int size;
+
+        private void add(int number) {
+            if(size == numbers.length)
+                numbers = Arrays.copyOf(numbers, size * 2);
+            numbers[size++] = number;
+        }
+    }
+
+    /**
+     * Open addressing table of posting lists by trigram, so looking up a trigram does not box it
+     */
+    private static class PostingTable {
+
+        /**
+         * Trigrams with a marker bit set above their 48 bits, 0 for a free slot
+         */
+        private long[] keys = new long[64];
+        private Posting[] postings = new Posting[64];
+        private int size;
+
+        /**
+         * Method to get the posting list of a trigram
+         * @param trigram - packed trigram
+         * @return posting list, or null if no name has the trigram
+         */
+        private Posting get(long trigram) {
+            return postings[slot(trigram | 1L << 48)];
+        }
+
+        /**
+         * Method to get the posting list of a trigram, adding an empty one if no name has it
+         * @param trigram - packed trigram
+         * @return posting list
+         */
+        private Posting getOrAdd(long trigram) {
+            long key = trigram | 1L << 48;
+            int slot = slot(key);
+            if(postings[slot] != null)
+                return postings[slot];
+            if(2 * (size + 1) > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+            return postings[slot] = new Posting();
+        }
+
+        /**
+         * Method to find the slot holding the key, or the free slot where it belongs
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Posting[] oldPostings = postings;
+            keys = new long[oldKeys.length * 2];
+            postings = new Posting[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if(oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    postings[slot] = oldPostings[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor to create the index of the names of a list
+     * @param tasksByName - tasks of the list by case folded name, the list must call add and
+     *                    remove when a name gets its first task or loses its last one
+     */
+    public NameSearchIndex(Map<String, ListAdt<Task>> tasksByName) {
+        this.tasksByName = tasksByName;
+        for (String name : tasksByName.keySet()) {
+            numbers.put(name, 0);
+        }
+        renumber();
+    }
+
+    /**
+     * Method to add a name to the index
+     * @param name - case folded name
+     */
+    public void add(String name) {
+        if(numbers.containsKey(name))
+            return;
+        if(numberCount == names.length)
+            names = Arrays.copyOf(names, numberCount * 2);
+        int number = numberCount++;
+        names[number] = name;
+        numbers.put(name, number);
+        addGrams(name, number);
+        int unranked = numberCount - rankedCount;
+        if(unranked >= MIN_RENUMBER && unranked > numbers.size() / UNRANKED_SHARE)
+            renumber();
+    }
+
+    /**
+     * Method to remove a name from the index
+     * @param name - case folded name
+     */
+    public void remove(String name) {
+        Integer number = numbers.remove(name);
+        if(number == null)
+            return;
+        names[number] = null;
+        removedCount++;
+        if(removedCount >= MIN_RENUMBER && removedCount > numbers.size())
+            renumber();
+    }
+
+    /**
+     * Method to search tasks whose name contains the fragment, ignoring case. Fragments shorter
+     * than three letters only match names starting with them
+     * @param fragment - part of the name to look for
+     * @param limit - largest number of results
+     * @param into - list the ranked results are added to
+     */
+    public void search(String fragment, int limit, ListAdt<Task> into) {
+        String query = Task.nameKey(fragment);
+        if(limit <= 0)
+            return;
+        // the exact match is the shortest name starting with the query, so it comes first
+        int found = collect(best(intersect(query, true), name -> name.startsWith(query), limit), limit, 0, into);
+        if(found == limit || query.length() < 3)
+            return;
+        PriorityQueue<String> contained = best(intersect(query, false),
+                name -> !name.startsWith(query) && name.contains(query), limit - found);
+        collect(contained, limit, found, into);
+    }
+
+    /**
+     * Method to count the tasks whose name has every trigram of the fragment, which holds
+     * every task whose name contains the fragment, ignoring case
+     * @param fragment - part of the name
+     * @param cap - count from which counting stops
+     * @return number of candidate tasks, more than cap if counting stopped early, or -1 if the
+     *         fragment is too short to use the index
+     */
+    public int countCandidates(String fragment, int cap) {
+        String query = Task.nameKey(fragment);
+        if(query.length() < 3)
+            return -1;
+        Intersection candidates = intersect(query, false);
+        int count = 0;
+        for (int number = candidates.next(); number >= 0 && count <= cap; number = candidates.next()) {
+            if(names[number] != null)
+                count += tasksByName.get(names[number]).size();
+        }
+        return count;
+    }
+
+    /**
+     * Method to read the tasks whose name has every trigram of the fragment, which holds every
+     * task whose name contains the fragment, ignoring case
+     * @param fragment - part of the name, at least three letters
+     * @return iterator over the candidate tasks
+     */
+    public Iterator<Task> candidates(String fragment) {
+        String query = Task.nameKey(fragment);
+        Intersection candidates = query.length() < 3 ? null : intersect(query, false);
+        // the arrays are replaced rather than changed when the index is renumbered
+        String[] numberedNames = names;
+        return new Iterator<Task>() {
+            private ListAdt<Task> sameName;
+            private int nextTask;
+
+            @Override
+            public boolean hasNext() {
+                while (sameName == null || nextTask >= sameName.size()) {
+                    int number = candidates == null ? -1 : candidates.next();
+                    if(number < 0)
+                        return false;
+                    String name = numberedNames[number];
+                    sameName = name == null ? null : tasksByName.get(name);
+                    nextTask = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                return sameName.getItem(nextTask++);
+            }
+        };
+    }
+
+    /**
+     * Reads the numbers listed in every posting list of a query in increasing order, checking
+     * the shortest list against the others by exponential search. The arrays of the lists are
+     * read as they were when the intersection was made
+     */
+    private static class Intersection {
+        private final int[][] lists;
+        private final int[] sizes;
+        private final int[] positions;
+
+        /**
+         * Constructor to intersect posting lists, at least one
+         * @param postings - lists to intersect, reordered shortest first
+         */
+        private Intersection(Posting... postings) {
+            Arrays.sort(postings, Comparator.comparingInt((Posting posting) -> posting.size));
+            lists = new int[postings.length][];
+            sizes = new int[postings.length];
+            positions = new int[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                lists[i] = postings[i].numbers;
+                sizes[i] = postings[i].size;
+            }
+        }
+
+        /**
+         * Method to get the next number listed in every list. Each list is moved to the number
+         * tried, and a list that has no such number gives the next number to try
+         * @return number, or -1 if there are no more
+         */
+        private int next() {
+            while (positions[0] < sizes[0]) {
+                int number = lists[0][positions[0]];
+                int ahead = number;
+                for (int i = 1; i < lists.length && ahead == number; i++) {
+                    positions[i] = seek(lists[i], positions[i], sizes[i], number);
+                    if(positions[i] == sizes[i]) {
+                        positions[0] = sizes[0];
+                        return -1;
+                    }
+                    ahead = lists[i][positions[i]];
+                }
+                if(ahead == number) {
+                    positions[0]++;
+                    return number;
+                }
+                positions[0] = seek(lists[0], positions[0], sizes[0], ahead);
+            }
+            return -1;
+        }
+
+        /**
+         * Method to skip to the first number listed in every list from the given number on
+         * @return number, or -1 if there are none
+         */
+        private int skipTo(int number) {
+            positions[0] = seek(lists[0], positions[0], sizes[0], number);
+            return next();
+        }
+
+        /**
+         * Method to find the first position from the given one holding at least the number
+         */
+        private static int seek(int[] list, int from, int size, int number) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && list[high] < number) {
+                low = high + 1;
+                high += step;
+                step *= 2;
+            }
+            high = Math.min(high, size);
+            int found = Arrays.binarySearch(list, low, high, number);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+
+    /**
+     * Method to intersect the posting lists of the trigrams of the query, and for a prefix
+     * search the list of its first letters
+     * @param query - case folded query, at least three letters unless for a prefix search
+     * @param prefix - true for a prefix search
+     * @return intersection of the lists
+     */
+    private Intersection intersect(String query, boolean prefix) {
+        if(query.isEmpty())
+            return new Intersection(everyName());
+        int trigramCount = Math.max(0, query.length() - 2);
+        Posting[] postings = new Posting[trigramCount + (prefix ? 1 : 0)];
+        for (int i = 0; i < trigramCount; i++) {
+            postings[i] = grams.get(trigram(query, i));
+        }
+        if(prefix)
+            postings[trigramCount] = grams.get(prefixGram(query, Math.min(3, query.length())));
+        for (Posting posting : postings) {
+            // a list no name is in leaves nothing to intersect
+            if(posting == null)
+                return new Intersection(new Posting());
+        }
+        return new Intersection(postings);
+    }
+
+    /**
+     * Method to get a posting list of every number given out, for the empty query
+     */
+    private Posting everyName() {
+        Posting every = new Posting();
+        every.numbers = new int[Math.max(2, numberCount)];
+        for (int number = 0; number < numberCount; number++) {
+            every.numbers[number] = number;
+        }
+        every.size = numberCount;
+        return every;
+    }
+
+    /**
+     * Method to find the best names among the candidates that pass the check. The ranked
+     * candidates come best first, so they are only read until enough names have passed, the
+     * candidates added since the last renumbering are all checked
+     * @param candidates - candidate numbers
+     * @param check - test of a live name
+     * @param wanted - number of names wanted
+     * @return best names, at most wanted of them
+     */
+    private PriorityQueue<String> best(Intersection candidates, Predicate<String> check, int wanted) {
+        PriorityQueue<String> best = new PriorityQueue<>(BY_LENGTH.reversed());
+        int number = candidates.next();
+        for (int taken = 0; number >= 0 && number < rankedCount; number = candidates.next()) {
+            String name = names[number];
+            if(name != null && check.test(name)) {
+                best.add(name);
+                if(++taken == wanted) {
+                    number = candidates.skipTo(rankedCount);
+                    break;
+                }
+            }
+        }
+        for (; number >= 0; number = candidates.next()) {
+            String name = names[number];
+            if(name != null && check.test(name))
+                keepBest(best, name, wanted);
+        }
+        return best;
+    }
+
+    /**
+     * Method to keep a name among the best names seen, at most the given number of them
+     */
+    private static void keepBest(PriorityQueue<String> best, String name, int count) {
+        best.add(name);
+        if(best.size() > count)
+            best.poll();
+    }
+
+    /**
+     * Method to add the tasks of the best names to the results in rank order, up to the limit
+     * @return number of results collected so far
+     */
+    private int collect(PriorityQueue<String> best, int limit, int found, ListAdt<Task> into) {
+        String[] ranked = best.toArray(new String[0]);
+        Arrays.sort(ranked, BY_LENGTH);
+        for (String name : ranked) {
+            ListAdt<Task> sameName = tasksByName.get(name);
+            for (int i = 0; i < sameName.size() && found < limit; i++) {
+                into.addItem(sameName.getItem(i));
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to number the live names in rank order and list them again in new posting lists,
+     * the arrays read by running searches are left as they were
+     */
+    private void renumber() {
+        String[] liveNames = numbers.keySet().toArray(new String[0]);
+        Arrays.sort(liveNames, BY_LENGTH);
+        names = Arrays.copyOf(liveNames, Math.max(16, liveNames.length * 2));
+        numberCount = liveNames.length;
+        rankedCount = liveNames.length;
+        removedCount = 0;
+        grams = new PostingTable();
+        for (int number = 0; number < liveNames.length; number++) {
+            numbers.put(liveNames[number], number);
+            addGrams(liveNames[number], number);
+        }
+    }
+
+    /**
+     * Method to list a name number in the posting lists of the trigrams and first letters of
+     * the name
+     */
+    private void addGrams(String name, int number) {
+        for (int length = 1; length <= Math.min(3, name.length()); length++) {
+            grams.getOrAdd(prefixGram(name, length)).add(number);
+        }
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            Posting posting = grams.getOrAdd(trigram(name, i));
+            // a trigram repeated in the name is only listed once
+            if(posting.size == 0 || posting.numbers[posting.size - 1] != number)
+                posting.add(number);
+        }
+    }
+
+    /**
+     * Method to pack the first one to three characters of a name into a key that is no trigram
+     */
+    private static long prefixGram(String key, int length) {
+        long gram = (long) length << 50;
+        for (int i = 0; i < length; i++) {
+            gram |= (long) key.charAt(i) << (32 - 16 * i);
+        }
+        return gram;
+    }
+
+    /**
+     * Method to pack the three characters starting at the given index into one key
+     */
+    private static long trigram(String key, int index) {
+        return ((long) key.charAt(index) << 32) | ((long) key.charAt(index + 1) << 16) | key.charAt(index + 2);
+    }
+}
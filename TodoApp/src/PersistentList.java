@@ -0,0 +1,292 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Persistent (immutable) Implementation of List
+ * Items are kept in a balanced binary tree ordered by position, where every node knows the
+ * size of its subtree. A list never changes: plus, minus and with return a new version that
+ * copies only the O(log n) nodes on the path to the changed position and shares all other
+ * nodes with the old version. Old versions stay valid and can be read by any thread without
+ * locking. The mutating methods of ListAdt are not supported
+ * @param <E>
+ */
+public final class PersistentList<E> implements ListAdt<E> {
+
+    /**
+     * Empty list shared by all item types
+     */
+    private static final PersistentList<Object> EMPTY = new PersistentList<>(null);
+
+    /**
+     * Root of the tree, null for the empty list
+     */
+    private final Node<E> root;
+
+    /**
+     * Node of the tree, never changed once created
+     */
+    private static final class Node<E> {
+        private final E value;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int size;
+        private final int height;
+
+        private Node(Node<E> left, E value, Node<E> right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private PersistentList(Node<E> root) {
+        this.root = root;
+    }
+
+    /**
+     * Method to get the empty list
+     * @return empty list
+     */
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Method to create a list holding the given items in a perfectly balanced tree, O(n)
+     * @param items - items of the new list
+     * @return new list
+     */
+    public static <E> PersistentList<E> copyOf(ListAdt<? extends E> items) {
+        Object[] values = new Object[items.size()];
+        int count = 0;
+        for (E item : items) {
+            values[count++] = item;
+        }
+        return new PersistentList<>(build(values, 0, count));
+    }
+
+    private static <E> Node<E> build(Object[] values, int from, int to) {
+        if(from >= to)
+            return null;
+        int middle = (from + to) >>> 1;
+        return new Node<>(build(values, from, middle), (E) values[middle], build(values, middle + 1, to));
+    }
+
+    /**
+     * Method to get a version with the item added at the end
+     * @param item - item to be added
+     * @return new version of the list
+     */
+    public PersistentList<E> plus(E item) {
+        return new PersistentList<>(insert(root, size(root), item));
+    }
+
+    /**
+     * Method to get a version with the item inserted at the given index
+     * @param index - index where the item is inserted
+     * @param item - item to be inserted
+     * @return new version of the list
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    public PersistentList<E> plus(int index, E item) throws IndexOutOfBoundsException {
+        if(index < 0 || index > size())
+            throw new IndexOutOfBoundsException();
+        return new PersistentList<>(insert(root, index, item));
+    }
+
+    /**
+     * Method to get a version without the item at the given index
+     * @param index - index of the item to be removed
+     * @return new version of the list
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    public PersistentList<E> minus(int index) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        return new PersistentList<>(remove(root, index));
+    }
+
+    /**
+     * Method to get a version with the item at the given index replaced
+     * @param index - index of the item to be replaced
+     * @param item - new item
+     * @return new version of the list
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    public PersistentList<E> with(int index, E item) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        return new PersistentList<>(set(root, index, item));
+    }
+
+    @Override
+    public E getItem(int index) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if(index < leftSize) {
+                node = node.left;
+            } else if(index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public boolean contains(E item) {
+        for (E current : this) {
+            if(item == null ? current == null : item.equals(current))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void addItem(E item) {
+        throw new UnsupportedOperationException("Persistent list is read only, use plus");
+    }
+
+    @Override
+    public void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        throw new UnsupportedOperationException("Persistent list is read only, use plus");
+    }
+
+    @Override
+    public E removeItem(int index) throws IndexOutOfBoundsException {
+        throw new UnsupportedOperationException("Persistent list is read only, use minus");
+    }
+
+    @Override
+    public E setItem(int index, E item) throws IndexOutOfBoundsException {
+        throw new UnsupportedOperationException("Persistent list is read only, use with");
+    }
+
+    /**
+     * Method to get an iterator walking the tree in order, O(1) per item on average
+     * @return iterator over the items
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final ArrayDeque<Node<E>> path = new ArrayDeque<>();
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<E> node) {
+                for (; node != null; node = node.left) {
+                    path.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if(path.isEmpty())
+                    throw new NoSuchElementException();
+                Node<E> node = path.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.IMMUTABLE);
+    }
+
+    private static <E> Node<E> insert(Node<E> node, int index, E item) {
+        if(node == null)
+            return new Node<>(null, item, null);
+        int leftSize = size(node.left);
+        if(index <= leftSize)
+            return balance(insert(node.left, index, item), node.value, node.right);
+        return balance(node.left, node.value, insert(node.right, index - leftSize - 1, item));
+    }
+
+    private static <E> Node<E> remove(Node<E> node, int index) {
+        int leftSize = size(node.left);
+        if(index < leftSize)
+            return balance(remove(node.left, index), node.value, node.right);
+        if(index > leftSize)
+            return balance(node.left, node.value, remove(node.right, index - leftSize - 1));
+        if(node.left == null)
+            return node.right;
+        if(node.right == null)
+            return node.left;
+        // replace the removed node by the first node of its right subtree
+        Node<E> first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(node.left, first.value, remove(node.right, 0));
+    }
+
+    private static <E> Node<E> set(Node<E> node, int index, E item) {
+        int leftSize = size(node.left);
+        if(index < leftSize)
+            return new Node<>(set(node.left, index, item), node.value, node.right);
+        if(index > leftSize)
+            return new Node<>(node.left, node.value, set(node.right, index - leftSize - 1, item));
+        return new Node<>(node.left, item, node.right);
+    }
+
+    /**
+     * Method to create a node whose subtrees differ in height by at most one, given subtrees
+     * that differ by at most two
+     */
+    private static <E> Node<E> balance(Node<E> left, E value, Node<E> right) {
+        int difference = height(left) - height(right);
+        if(difference > 1) {
+            if(height(left.left) >= height(left.right))
+                return new Node<>(left.left, left.value, new Node<>(left.right, value, right));
+            return new Node<>(new Node<>(left.left, left.value, left.right.left), left.right.value,
+                    new Node<>(left.right.right, value, right));
+        }
+        if(difference < -1) {
+            if(height(right.right) >= height(right.left))
+                return new Node<>(new Node<>(left, value, right.left), right.value, right.right);
+            return new Node<>(new Node<>(left, value, right.left.left), right.left.value,
+                    new Node<>(right.left.right, right.value, right.right));
+        }
+        return new Node<>(left, value, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private boolean isValidIndex(int index) {
+        return index >= 0 && index < size();
+    }
+}
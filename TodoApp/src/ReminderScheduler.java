@@ -0,0 +1,333 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Scheduler of reminders for the due dates of tasks
+ * Incomplete tasks are kept in a hierarchical timing wheel of days: the first level has a slot
+ * for each of the next 64 days, the second for each of the next 64 spans of 64 days and the
+ * third for spans of 4096 days, later tasks wait in one overflow slot. Each slot is a doubly
+ * linked list, so scheduling, rescheduling and cancelling a task are O(1). Moving to the next
+ * day fires the tasks of one slot, and the tasks of a higher level slot are moved down once
+ * when its span starts, so every task is handled O(1) times until it fires and the list is
+ * never scanned again after the scheduler is created. The wheel follows the changes of the
+ * task list as its listener, a task fires once for its due date while it is incomplete
+ *
+ * Days are taken from the given clock, so the scheduler can be driven by calling tick with a
+ * fixed clock, or by start which ticks on a background thread at the start of every day
+ */
+public class ReminderScheduler implements TaskListListener, AutoCloseable {
+
+    // Shape of the wheel, each level has 2^SLOT_BITS slots
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 3;
+
+    /**
+     * Longest time the background thread waits before checking the clock again, so changes of
+     * the system clock are noticed
+     */
+    private static final Duration MAX_WAIT = Duration.ofHours(1);
+
+    /**
+     * List whose tasks are scheduled
+     */
+    private final TaskList taskList;
+
+    /**
+     * Clock the current day is taken from
+     */
+    private final Clock clock;
+
+    /**
+     * Callback told about the tasks that came due at each tick
+     */
+    private final Consumer<ListAdt<Task>> reminder;
+
+    /**
+     * Slots of the wheel by level, each slot is the sentinel of a circular list
+     */
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+
+    /**
+     * Tasks due after the span of the highest level
+     */
+    private final Entry overflow = new Entry(null, 0);
+
+    /**
+     * Tasks that came due and fire at the next tick
+     */
+    private final Entry expired = new Entry(null, 0);
+
+    /**
+     * Entries of the scheduled tasks, compared by identity since tasks are equal by name.
+     * Fired entries are kept until their task changes, so a task fires once for its due date
+     */
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Last day whose tasks were fired, as epoch day
+     */
+    private long currentDay;
+
+    /**
+     * Number of scheduled tasks that have not fired yet
+     */
+    private int pending;
+
+    /**
+     * Thread ticking at the start of every day, null unless started
+     */
+    private ScheduledExecutorService timer;
+
+    /**
+     * Scheduled task and its place in the wheel
+     */
+    private static class Entry {
+        private final Task task;
+        private final long day;
+        private Entry prev = this;
+        private Entry next = this;
+        private boolean fired;
+
+        private Entry(Task task, long day) {
+            this.task = task;
+            this.day = day;
+        }
+
+        private void linkBefore(Entry sentinel) {
+            prev = sentinel.prev;
+            next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+
+    /**
+     * Constructor to create a scheduler for the incomplete tasks of the list
+     * @param taskList - list whose tasks are scheduled
+     * @param clock - clock the current day is taken from
+     * @param reminder - callback told about the tasks that came due, on the thread that ticks
+     */
+    public ReminderScheduler(TaskList taskList, Clock clock, Consumer<ListAdt<Task>> reminder) {
+        this.taskList = taskList;
+        this.clock = clock;
+        this.reminder = reminder;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level][slot] = new Entry(null, 0);
+            }
+        }
+        synchronized (this) {
+            currentDay = today();
+            for (Task task : taskList) {
+                schedule(task);
+            }
+        }
+        taskList.addListener(this);
+    }
+
+    /**
+     * Method to tick on a background thread at the start of every day of the clock
+     */
+    public synchronized void start() {
+        if(timer != null)
+            return;
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.execute(this::tickAndWait);
+    }
+
+    /**
+     * Method to fire the reminders of all tasks due up to the current day of the clock
+     * @return number of tasks that fired
+     */
+    public int tick() {
+        ListAdt<Task> due = new ArrayList<>();
+        synchronized (this) {
+            long today = today();
+            while (currentDay < today) {
+                advance();
+            }
+            for (Entry entry = expired.next; entry != expired; entry = expired.next) {
+                entry.unlink();
+                entry.fired = true;
+                pending--;
+                due.addItem(entry.task);
+            }
+        }
+        // the callback is called without holding the scheduler, so it may change the list
+        if(!due.isEmpty())
+            reminder.accept(due);
+        return due.size();
+    }
+
+    /**
+     * Method to get the number of tasks waiting for their due date
+     * @return number of pending reminders
+     */
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    /**
+     * Method to stop ticking and stop following the changes of the list
+     */
+    @Override
+    public void close() {
+        taskList.removeListener(this);
+        synchronized (this) {
+            if(timer != null) {
+                timer.shutdownNow();
+                timer = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void itemInserted(int index, Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public synchronized void itemRemoved(int index, Task task) {
+        cancel(task);
+    }
+
+    @Override
+    public synchronized void itemSet(int index, Task oldTask, Task task) {
+        cancel(oldTask);
+        schedule(task);
+    }
+
+    @Override
+    public synchronized void taskChanged(int index, Task task) {
+        Entry entry = entries.get(task);
+        // renaming a task or changing it back and forth keeps its reminder
+        if(entry != null && !task.isDone() && task.getDueDate() != null
+                && entry.day == task.getDueDate().toEpochDay())
+            return;
+        cancel(task);
+        schedule(task);
+    }
+
+    /**
+     * Method to tick at the current day and wait for the next one, on the background thread
+     */
+    private void tickAndWait() {
+        try {
+            tick();
+        } catch (RuntimeException ex) {
+            System.out.format("ERROR: Reminders could not be shown[%s]\n", ex.getMessage());
+        }
+        Instant now = clock.instant();
+        Instant nextDay = LocalDate.ofEpochDay(today() + 1).atStartOfDay(clock.getZone()).toInstant();
+        Duration wait = Duration.between(now, nextDay);
+        if(wait.compareTo(MAX_WAIT) > 0)
+            wait = MAX_WAIT;
+        synchronized (this) {
+            if(timer != null)
+                timer.schedule(this::tickAndWait, Math.max(1, wait.toMillis()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    /**
+     * Method to add an incomplete task with a due date to the wheel
+     */
+    private void schedule(Task task) {
+        // a task added to the list twice keeps one reminder
+        if(task.isDone() || task.getDueDate() == null || entries.containsKey(task))
+            return;
+        Entry entry = new Entry(task, task.getDueDate().toEpochDay());
+        entries.put(task, entry);
+        pending++;
+        place(entry);
+    }
+
+    /**
+     * Method to remove a task from the wheel
+     */
+    private void cancel(Task task) {
+        Entry entry = entries.remove(task);
+        if(entry != null && !entry.fired) {
+            entry.unlink();
+            pending--;
+        }
+    }
+
+    /**
+     * Method to link an entry into the slot of its day, seen from the current day
+     */
+    private void place(Entry entry) {
+        long day = entry.day;
+        if(day <= currentDay) {
+            entry.linkBefore(expired);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            // the day is in the current span of this level
+            if(day >> shift == currentDay >> shift) {
+                entry.linkBefore(wheel[level][(int) (day >> (shift - SLOT_BITS)) & (SLOTS - 1)]);
+                return;
+            }
+        }
+        entry.linkBefore(overflow);
+    }
+
+    /**
+     * Method to move to the next day, moving down the tasks of the spans that start on it and
+     * marking the tasks due on it as expired
+     */
+    private void advance() {
+        currentDay++;
+        // spans start on days whose lower bits are zero, the highest level is moved first
+        for (int level = LEVELS; level > 0; level--) {
+            long mask = (1L << (SLOT_BITS * level)) - 1;
+            if((currentDay & mask) != 0)
+                continue;
+            Entry slot = level == LEVELS ? overflow
+                    : wheel[level][(int) (currentDay >> (SLOT_BITS * level)) & (SLOTS - 1)];
+            cascade(slot);
+        }
+        cascade(wheel[0][(int) currentDay & (SLOTS - 1)]);
+    }
+
+    /**
+     * Method to place every entry of a slot again from the current day
+     */
+    private void cascade(Entry slot) {
+        // the slot is emptied first, since entries of the overflow slot may go back into it
+        Entry entry = slot.next;
+        slot.next = slot;
+        slot.prev = slot;
+        while (entry != slot) {
+            Entry next = entry.next;
+            entry.prev = entry;
+            entry.next = entry;
+            place(entry);
+            entry = next;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test of the order in which the reminder scheduler fires, driven by a clock that only moves
+ * when told to
+ * The scheduler is started a few days before a day where the spans of every level of the wheel
+ * and of the overflow slot start together. A fixed scenario then moves the clock by single days
+ * and by long jumps over the slot, level and overflow boundaries, adding, reopening and moving
+ * tasks on the way, and checks the exact tasks each tick fires, in order. A random run then
+ * changes the list and moves the clock at random and checks every tick against a model: the
+ * tasks due up to the current day fire once, tasks that were already due when scheduled first,
+ * then by due date and in the order they were scheduled within a day. Fails with exit code 1
+ * if any check does not hold
+ *
+ * Usage: java ReminderSchedulerTest [--steps n] [--seed n]
+ */
+public class ReminderSchedulerTest {
+
+    /**
+     * First day of a span of every level of the wheel, 2^18 days after the epoch
+     */
+    private static final long SPAN_START = 1L << 18;
+
+    /**
+     * Largest number of days a task of the random run is due after the current day
+     */
+    private static final int MAX_DAYS_AHEAD = 300_000;
+
+    /**
+     * Days the clock moves by in the random run, single days and the lengths of the spans
+     */
+    private static final int[] JUMPS = {0, 1, 1, 2, 63, 64, 65, 4095, 4096, 4097, 262_145};
+
+    private int steps = 20_000;
+    private long seed = 42;
+
+    private int failures;
+
+    /**
+     * Clock that stays on a fixed instant until it is moved on by whole days
+     */
+    private static class SteppedClock extends Clock {
+        private Clock current;
+
+        private SteppedClock(long epochDay) {
+            current = Clock.fixed(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        }
+
+        private void advance(long days) {
+            current = Clock.offset(current, Duration.ofDays(days));
+        }
+
+        private long today() {
+            return LocalDate.now(current).toEpochDay();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return current.getZone();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return current.withZone(zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return current.instant();
+        }
+    }
+
+    /**
+     * Reminder the model expects for a task
+     */
+    private static class Expected {
+        private final Task task;
+        private final long day;
+        private final long sequence;
+        private boolean fired;
+
+        private Expected(Task task, long day, long sequence) {
+            this.task = task;
+            this.day = day;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Sequential model of the scheduler, following the same changes of the list
+     */
+    private static class Model implements TaskListListener {
+        private final Map<Task, Expected> expected = new IdentityHashMap<>();
+        private long currentDay;
+        private long nextSequence;
+
+        private Model(TaskList taskList, long today) {
+            currentDay = today;
+            for (Task task : taskList) {
+                schedule(task);
+            }
+        }
+
+        private void schedule(Task task) {
+            if(task.isDone() || task.getDueDate() == null || expected.containsKey(task))
+                return;
+            expected.put(task, new Expected(task, task.getDueDate().toEpochDay(), nextSequence++));
+        }
+
+        @Override
+        public void itemInserted(int index, Task task) {
+            schedule(task);
+        }
+
+        @Override
+        public void itemRemoved(int index, Task task) {
+            expected.remove(task);
+        }
+
+        @Override
+        public void itemSet(int index, Task oldTask, Task task) {
+            expected.remove(oldTask);
+            schedule(task);
+        }
+
+        @Override
+        public void taskChanged(int index, Task task) {
+            Expected reminder = expected.get(task);
+            if(reminder != null && !task.isDone() && task.getDueDate() != null
+                    && reminder.day == task.getDueDate().toEpochDay())
+                return;
+            expected.remove(task);
+            schedule(task);
+        }
+
+        /**
+         * Method to take the tasks that fire when the clock reaches the given day, in order
+         */
+        private Task[] tick(long today) {
+            long lastDay = currentDay;
+            Expected[] due = expected.values().stream()
+                    .filter(reminder -> !reminder.fired && reminder.day <= today)
+                    .sorted(Comparator.comparingLong((Expected reminder) -> Math.max(reminder.day, lastDay))
+                            .thenComparingLong(reminder -> reminder.sequence))
+                    .toArray(Expected[]::new);
+            Task[] tasks = new Task[due.length];
+            for (int i = 0; i < due.length; i++) {
+                due[i].fired = true;
+                tasks[i] = due[i].task;
+            }
+            currentDay = Math.max(currentDay, today);
+            return tasks;
+        }
+
+        private int pendingCount() {
+            int pending = 0;
+            for (Expected reminder : expected.values()) {
+                if(!reminder.fired)
+                    pending++;
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * Method to report a failed check
+     * @param message - what did not hold
+     */
+    private void fail(String message) {
+        if(++failures <= 10)
+            System.out.println("FAILED: " + message);
+    }
+
+    /**
+     * Method to tick the scheduler and check the tasks it fired
+     * @param scheduler - scheduler to tick
+     * @param fired - list the reminder callback adds the fired tasks to
+     * @param expected - tasks that should fire, in order
+     * @param when - description of the tick for the failure message
+     */
+    private void checkTick(ReminderScheduler scheduler, java.util.ArrayList<Task> fired, Task[] expected, String when) {
+        fired.clear();
+        int count = scheduler.tick();
+        Task[] actual = fired.toArray(new Task[0]);
+        if(count != actual.length || actual.length != expected.length) {
+            fail(when + ": fired " + names(actual) + " instead of " + names(expected));
+            return;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if(actual[i] != expected[i]) {
+                fail(when + ": fired " + names(actual) + " instead of " + names(expected));
+                return;
+            }
+        }
+    }
+
+    private static String names(Task[] tasks) {
+        return Arrays.toString(Arrays.stream(tasks).map(Task::getName).toArray());
+    }
+
+    private static Task task(String name, long day) {
+        return new Task(name, LocalDate.ofEpochDay(day));
+    }
+
+    /**
+     * Method to run the fixed scenario over the boundaries of the wheel
+     */
+    private void runScenario() {
+        long start = SPAN_START - 70;
+        SteppedClock clock = new SteppedClock(start);
+        Task farOverflow = task("far overflow", 2 * SPAN_START + 5);
+        Task overflowStart = task("overflow start", 2 * SPAN_START);
+        Task lastLevelTwo = task("last level two", 2 * SPAN_START - 1);
+        Task levelTwo = task("level two", SPAN_START + 4096);
+        Task twinB = task("twin b", SPAN_START + 64);
+        Task spanStart = task("span start", SPAN_START);
+        Task levelOneEnd = task("level one end", SPAN_START + 63);
+        Task twinA = task("twin a", SPAN_START + 64);
+        Task sameNameLater = task("same name", SPAN_START + 3);
+        Task sameName = task("same name", SPAN_START + 2);
+        Task beforeSpan = task("before span", SPAN_START - 1);
+        Task reopened = new Task("reopened", LocalDate.ofEpochDay(SPAN_START + 1), true);
+        Task tomorrow = task("tomorrow", start + 1);
+        Task[] tasks = {farOverflow, overflowStart, lastLevelTwo, levelTwo, twinB, spanStart, levelOneEnd,
+                twinA, sameNameLater, sameName, beforeSpan, reopened, tomorrow};
+        TaskList taskList = new TaskList();
+        for (Task task : tasks) {
+            taskList.addItem(task);
+        }
+        java.util.ArrayList<Task> fired = new java.util.ArrayList<>();
+        try (ReminderScheduler scheduler = new ReminderScheduler(taskList, clock, due -> {
+            for (Task task : due) {
+                fired.add(task);
+            }
+        })) {
+            if(scheduler.pendingCount() != tasks.length - 1)
+                fail("scenario: " + scheduler.pendingCount() + " pending reminders instead of " + (tasks.length - 1));
+            checkTick(scheduler, fired, new Task[0], "first day");
+            clock.advance(1);
+            checkTick(scheduler, fired, new Task[]{tomorrow}, "next day");
+            clock.advance(SPAN_START - 1 - clock.today());
+            checkTick(scheduler, fired, new Task[]{beforeSpan}, "last day before the span");
+            clock.advance(1);
+            checkTick(scheduler, fired, new Task[]{spanStart}, "start of the span of every level");
+
+            // already due when added, it fires before the days the clock moves over
+            Task overdue = task("overdue", SPAN_START - 3);
+            Task addedAhead = task("added ahead", SPAN_START + 1);
+            reopened.setDone(false);
+            taskList.addItem(overdue);
+            taskList.addItem(addedAhead);
+            clock.advance(3);
+            checkTick(scheduler, fired, new Task[]{overdue, reopened, addedAhead, sameName, sameNameLater},
+                    "three days into the span");
+
+            // moved to an earlier day, it fires after the task scheduled there before it
+            twinA.setDueDate(LocalDate.ofEpochDay(SPAN_START + 63));
+            clock.advance(SPAN_START + 64 - clock.today());
+            checkTick(scheduler, fired, new Task[]{levelOneEnd, twinA, twinB}, "over the end of the first level");
+            clock.advance(SPAN_START + 4095 - clock.today());
+            checkTick(scheduler, fired, new Task[0], "last day of the first span of the second level");
+            clock.advance(1);
+            checkTick(scheduler, fired, new Task[]{levelTwo}, "start of the second span of the second level");
+
+            // fired tasks that are only renamed do not fire again
+            levelTwo.setName("level two renamed");
+            clock.advance(2 * SPAN_START - 1 - clock.today());
+            checkTick(scheduler, fired, new Task[]{lastLevelTwo}, "last day before the overflow span");
+            clock.advance(1);
+            checkTick(scheduler, fired, new Task[]{overflowStart}, "start of the overflow span");
+            checkTick(scheduler, fired, new Task[0], "same day again");
+            clock.advance(5);
+            checkTick(scheduler, fired, new Task[]{farOverflow}, "into the overflow span");
+            if(scheduler.pendingCount() != 0)
+                fail("scenario: " + scheduler.pendingCount() + " pending reminders left");
+        }
+    }
+
+    /**
+     * Method to change the list and move the clock at random, checking every tick against the model
+     */
+    private void runRandom() {
+        Random random = new Random(seed);
+        long start = SPAN_START - 100;
+        SteppedClock clock = new SteppedClock(start);
+        TaskList taskList = new TaskList();
+        int named = 0;
+        for (int i = 0; i < 200; i++) {
+            taskList.addItem(randomTask(random, start, named++));
+        }
+        Model model = new Model(taskList, start);
+        taskList.addListener(model);
+        java.util.ArrayList<Task> fired = new java.util.ArrayList<>();
+        try (ReminderScheduler scheduler = new ReminderScheduler(taskList, clock, due -> {
+            for (Task task : due) {
+                fired.add(task);
+            }
+        })) {
+            for (int step = 0; step < steps && failures == 0; step++) {
+                long today = clock.today();
+                int operation = random.nextInt(10);
+                if(operation < 3 || taskList.isEmpty()) {
+                    taskList.insertItem(random.nextInt(taskList.size() + 1), randomTask(random, today, named++));
+                } else if(operation < 4) {
+                    taskList.removeItem(random.nextInt(taskList.size()));
+                } else if(operation < 5) {
+                    taskList.setItem(random.nextInt(taskList.size()), randomTask(random, today, named++));
+                } else if(operation < 6) {
+                    Task task = taskList.getItem(random.nextInt(taskList.size()));
+                    task.setDone(!task.isDone());
+                } else if(operation < 7) {
+                    Task task = taskList.getItem(random.nextInt(taskList.size()));
+                    task.setDueDate(randomDay(random, today));
+                } else if(operation < 8) {
+                    Task task = taskList.getItem(random.nextInt(taskList.size()));
+                    task.setName(task.getName() + "'");
+                } else {
+                    clock.advance(JUMPS[random.nextInt(JUMPS.length)]);
+                    checkTick(scheduler, fired, model.tick(clock.today()), "step " + step + " on day " + clock.today());
+                    if(scheduler.pendingCount() != model.pendingCount())
+                        fail("step " + step + ": " + scheduler.pendingCount() + " pending reminders instead of " + model.pendingCount());
+                }
+            }
+        }
+        System.out.format("%d steps up to day %d, %d tasks, %d failures\n",
+                steps, clock.today() - start, taskList.size(), failures);
+    }
+
+    private static Task randomTask(Random random, long today, int number) {
+        return new Task("task " + number, randomDay(random, today), random.nextInt(8) == 0);
+    }
+
+    /**
+     * Method to pick a due date, mostly near the current day and sometimes none
+     */
+    private static LocalDate randomDay(Random random, long today) {
+        switch (random.nextInt(6)) {
+            case 0: return null;
+            case 1: return LocalDate.ofEpochDay(today - random.nextInt(5));
+            case 2: return LocalDate.ofEpochDay(today + random.nextInt(MAX_DAYS_AHEAD));
+            default: return LocalDate.ofEpochDay(today + random.nextInt(200));
+        }
+    }
+
+    /**
+     * Method to run the test and print the result
+     * @return true if every check held
+     */
+    private boolean run() {
+        runScenario();
+        runRandom();
+        return failures == 0;
+    }
+
+    /**
+     * Main function of the test
+     * @param args
+     */
+    public static void main(String args[]) {
+        ReminderSchedulerTest test = new ReminderSchedulerTest();
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--steps": test.steps = Integer.parseInt(args[++i]); break;
+                case "--seed": test.seed = Long.parseLong(args[++i]); break;
+            }
+        }
+        System.exit(test.run() ? 0 : 1);
+    }
+}
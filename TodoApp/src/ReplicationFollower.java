@@ -0,0 +1,321 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Follower of a replicated task list
+ * Connects to a primary, loads the snapshot it sends into a new list and then applies every
+ * record the primary sends, checking that no record is missing. The list is only changed by
+ * the follower, so it can serve any number of readers, which read it through read while the
+ * records of a frame are applied under a write lock. The new list of a snapshot is loaded
+ * without the lock and swapped in at once. When the connection is lost, or the primary does
+ * not send anything for a while, the follower keeps the list it has and reconnects, loading a
+ * new snapshot. How far it is behind the primary is published as metrics
+ */
+public class ReplicationFollower implements ReplicationFollowerMBean, Closeable {
+
+    /**
+     * Time waited before connecting again after the connection was lost
+     */
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Longest time without a frame from the primary, which sends a heartbeat every second
+     */
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Largest frame accepted from the primary
+     */
+    private static final int MAX_FRAME_BYTES = 64 << 20;
+
+    /**
+     * Address of the primary
+     */
+    private final InetSocketAddress primary;
+
+    /**
+     * Creator of the empty lists a snapshot is loaded into
+     */
+    private final Supplier<ListAdt<Task>> listFactory;
+
+    /**
+     * List of the last snapshot with the records applied since, empty until the first snapshot
+     */
+    private volatile TaskList taskList;
+
+    /**
+     * Lock shared by the readers and held alone while records are applied
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TaskCodec codec = new TaskCodec();
+    private final CRC32 crc = new CRC32();
+    private byte[] frameBytes = new byte[ReplicationPrimary.FRAME_BYTES];
+
+    // State of the replication, written by the follower thread only
+    private volatile boolean connected;
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long lagMillis;
+    private volatile long lastContactMillis;
+    private volatile long snapshotCount;
+
+    private final CountDownLatch firstSnapshot = new CountDownLatch(1);
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private Thread thread;
+
+    /**
+     * Constructor to create a follower of the primary at the given address
+     * @param primary - address of the primary
+     * @param listFactory - creator of the empty lists the tasks are kept in
+     */
+    public ReplicationFollower(InetSocketAddress primary, Supplier<ListAdt<Task>> listFactory) {
+        this.primary = primary;
+        this.listFactory = listFactory;
+        this.taskList = newTaskList();
+    }
+
+    /**
+     * Method to start following the primary on a background thread
+     */
+    public synchronized void start() {
+        if(thread != null)
+            return;
+        thread = new Thread(this::follow, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Method to wait until the first snapshot is loaded
+     * @param timeout - longest time to wait
+     * @param unit - unit of the timeout
+     * @return true if the snapshot is loaded, false if the time ran out
+     * @throws InterruptedException - if the thread was interrupted while waiting
+     */
+    public boolean awaitSnapshot(long timeout, TimeUnit unit) throws InterruptedException {
+        return firstSnapshot.await(timeout, unit);
+    }
+
+    /**
+     * Method to read the list, records are not applied while the action runs. The list must
+     * not be changed by the action
+     * @param action - action reading the list
+     * @return result of the action
+     */
+    public <T> T read(Function<TaskList, T> action) {
+        lock.readLock().lock();
+        try {
+            return action.apply(taskList);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to stop following the primary, the list keeps the tasks it has
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket current = socket;
+        if(current != null)
+            current.close();
+        Thread running;
+        synchronized (this) {
+            running = thread;
+        }
+        if(running != null)
+            running.interrupt();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    @Override
+    public long getLagChanges() {
+        return Math.max(0, primarySequence - appliedSequence);
+    }
+
+    @Override
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public long getMillisSinceContact() {
+        return lastContactMillis == 0 ? -1 : System.currentTimeMillis() - lastContactMillis;
+    }
+
+    @Override
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    /**
+     * Method to follow the primary until the follower is closed, connecting again whenever
+     * the connection is lost
+     */
+    private void follow() {
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                if(closed)
+                    return;
+                connection.connect(primary, CONNECT_TIMEOUT_MILLIS);
+                connection.setSoTimeout(READ_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(),
+                        ReplicationPrimary.FRAME_BYTES));
+                loadSnapshot(in);
+                while (true) {
+                    applyFrame(readFrame(in));
+                }
+            } catch (IOException | RuntimeException ex) {
+                // lost the primary or a record did not fit the list, the list is kept until
+                // the next snapshot
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method to read one frame
+     * @return payload of the frame starting with its type
+     */
+    private ByteBuffer readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 1 || length > MAX_FRAME_BYTES)
+            throw new IOException("Invalid frame length : " + length);
+        if(frameBytes.length < length)
+            frameBytes = new byte[length];
+        in.readFully(frameBytes, 0, length);
+        lastContactMillis = System.currentTimeMillis();
+        return ByteBuffer.wrap(frameBytes, 0, length);
+    }
+
+    /**
+     * Method to create an empty list for the tasks of the primary. The list only changes by
+     * applying the records of the primary, which are never undone here, so it keeps no history
+     * @return empty task list
+     */
+    private TaskList newTaskList() {
+        TaskList newList = new TaskList(listFactory.get());
+        newList.setHistoryEnabled(false);
+        return newList;
+    }
+
+    /**
+     * Method to load the snapshot the primary sends first into a new list and swap it in
+     */
+    private void loadSnapshot(DataInputStream in) throws IOException {
+        ByteBuffer frame = readFrame(in);
+        if(frame.get() != ReplicationPrimary.SNAPSHOT || frame.remaining() < 20
+                || frame.getInt() != ReplicationPrimary.MAGIC || frame.getInt() != ReplicationPrimary.VERSION)
+            throw new IOException("The primary did not start with a snapshot");
+        long sequence = frame.getLong();
+        int count = frame.getInt();
+        TaskList loaded = newTaskList();
+        loaded.ensureCapacity(count);
+        while (loaded.size() < count) {
+            frame = readFrame(in);
+            if(frame.get() != ReplicationPrimary.TASKS)
+                throw new IOException("Snapshot ended after " + loaded.size() + " of " + count + " tasks");
+            for (int i = frame.getInt(); i > 0; i--) {
+                loaded.load(codec.readTask(frame));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            taskList = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // a restarted primary numbers its changes from the start again
+        appliedSequence = sequence;
+        primarySequence = sequence;
+        snapshotCount++;
+        connected = true;
+        firstSnapshot.countDown();
+    }
+
+    /**
+     * Method to apply a frame of records or take in a heartbeat
+     */
+    private void applyFrame(ByteBuffer frame) throws IOException {
+        byte type = frame.get();
+        long now = System.currentTimeMillis();
+        if(type == ReplicationPrimary.HEARTBEAT) {
+            long sequence = frame.getLong();
+            long sentMillis = frame.getLong();
+            primarySequence = Math.max(primarySequence, sequence);
+            if(appliedSequence >= sequence)
+                lagMillis = Math.max(0, now - sentMillis);
+            return;
+        }
+        if(type != ReplicationPrimary.RECORDS)
+            throw new IOException("Unknown frame type : " + type);
+        long firstRecordMillis = frame.getLong();
+        int start = frame.position();
+        // check every record before changing the list, so a damaged frame changes nothing
+        long expected = appliedSequence;
+        while (frame.hasRemaining()) {
+            int payloadSize = frame.getInt();
+            int checksum = frame.getInt();
+            if(payloadSize < TaskCodec.MIN_PAYLOAD_SIZE || payloadSize > frame.remaining())
+                throw new IOException("Invalid record length : " + payloadSize);
+            crc.reset();
+            crc.update(frame.array(), frame.arrayOffset() + frame.position(), payloadSize);
+            if((int) crc.getValue() != checksum)
+                throw new IOException("Record checksum mismatch");
+            if(frame.getLong(frame.position()) != ++expected)
+                throw new IOException("Missing records before " + frame.getLong(frame.position()));
+            frame.position(frame.position() + payloadSize);
+        }
+        frame.position(start);
+        lock.writeLock().lock();
+        try {
+            while (frame.hasRemaining()) {
+                int payloadSize = frame.getInt();
+                frame.getInt();
+                int next = frame.position() + payloadSize;
+                frame.getLong();
+                codec.applyRecord(taskList, frame);
+                frame.position(next);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        appliedSequence = expected;
+        primarySequence = Math.max(primarySequence, expected);
+        lagMillis = Math.max(0, System.currentTimeMillis() - firstRecordMillis);
+    }
+}
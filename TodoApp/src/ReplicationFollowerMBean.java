@@ -0,0 +1,37 @@
+/**
+ * Management interface of a replication follower, published through JMX
+ */
+public interface ReplicationFollowerMBean {
+
+    /**
+     * @return true while the follower is connected to the primary and has its snapshot
+     */
+    boolean isConnected();
+
+    /**
+     * @return sequence number of the last change applied to the follower
+     */
+    long getAppliedSequence();
+
+    /**
+     * @return number of changes made on the primary that the follower has not applied yet, as
+     * last told by the primary
+     */
+    long getLagChanges();
+
+    /**
+     * @return time in milliseconds from the last applied change being made on the primary to
+     * it being applied, or from the last heartbeat being sent to it being received
+     */
+    long getLagMillis();
+
+    /**
+     * @return time in milliseconds since the last frame was received from the primary
+     */
+    long getMillisSinceContact();
+
+    /**
+     * @return number of snapshots loaded, one more for every reconnection
+     */
+    long getSnapshotCount();
+}
@@ -0,0 +1,388 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Primary of a replicated task list
+ * Every change made to the list is encoded as a numbered record, the same records the journal
+ * writes to its log, and the records are sent to the followers in frames, when a frame is full
+ * or shortly after its first record. A follower that connects is first sent a snapshot of the
+ * whole list and then every record made after it, so it holds the same tasks in the same order.
+ * The snapshot is read from a persistent copy of the list kept by the primary, taken in O(1)
+ * together with the sequence number of its last change, so it is sent without locking the list
+ * however long the transfer takes. Each follower is sent its frames by its own thread, and one
+ * that falls too far behind is disconnected instead of holding up the writers, it reconnects
+ * and starts again from a new snapshot. Frames are also sent once a second while the list does
+ * not change, so followers can tell how far behind they are
+ *
+ * Frames are a length, a type and a payload:
+ *   SNAPSHOT  magic, version, sequence number and task count, followed by TASKS frames
+ *   TASKS     task count and encoded tasks
+ *   RECORDS   time of the first record in ms and the records
+ *   HEARTBEAT sequence number of the last change and time in ms
+ */
+public class ReplicationPrimary implements TaskListListener, Closeable {
+
+    // Types of frames
+    static final byte SNAPSHOT = 1;
+    static final byte TASKS = 2;
+    static final byte RECORDS = 3;
+    static final byte HEARTBEAT = 4;
+
+    /**
+     * Marker at the start of a snapshot and version of the protocol
+     */
+    static final int MAGIC = 0x54445250;
+    static final int VERSION = 1;
+
+    /**
+     * Size in bytes of a frame header: length of the type and payload, and type
+     */
+    static final int FRAME_HEADER_SIZE = 5;
+
+    /**
+     * Largest size in bytes of a frame of records or tasks, longer frames are only made for
+     * records of very long names
+     */
+    static final int FRAME_BYTES = 1 << 16;
+
+    /**
+     * Longest time a record waits before its frame is sent
+     */
+    private static final long MAX_DELAY_MILLIS = 5;
+
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    /**
+     * Number of frames waiting for a follower after which it is disconnected
+     */
+    private static final int MAX_QUEUED_FRAMES = 1024;
+
+    /**
+     * List whose changes are sent
+     */
+    private final TaskList taskList;
+
+    /**
+     * Copy of the list with a copy of each task, changed with every record so it is always
+     * the list as of the last record
+     */
+    private PersistentList<Task> copy;
+
+    /**
+     * Sequence number of the last record
+     */
+    private long sequence;
+
+    /**
+     * Records not sent yet, as a frame whose header is written when it is sent
+     */
+    private ByteBuffer frame = newRecordsFrame();
+    private long frameStartMillis;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Connected followers
+     */
+    private final CopyOnWriteArrayList<Follower> followers = new CopyOnWriteArrayList<>();
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+
+    /**
+     * Thread sending the frames that are not full in time and the heartbeats
+     */
+    private final ScheduledExecutorService timer;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Connection to one follower, sending its frames on its own thread
+     */
+    private class Follower implements Runnable {
+        private final Socket socket;
+        private final PersistentList<Task> snapshot;
+        private final long snapshotSequence;
+        private final BlockingQueue<byte[]> frames = new ArrayBlockingQueue<>(MAX_QUEUED_FRAMES);
+
+        private Follower(Socket socket, PersistentList<Task> snapshot, long snapshotSequence) {
+            this.socket = socket;
+            this.snapshot = snapshot;
+            this.snapshotSequence = snapshotSequence;
+        }
+
+        @Override
+        public void run() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), FRAME_BYTES))) {
+                sendSnapshot(out);
+                while (true) {
+                    byte[] next = frames.poll();
+                    if(next == null) {
+                        out.flush();
+                        next = frames.take();
+                    }
+                    if(next.length == 0)
+                        return;
+                    out.write(next);
+                }
+            } catch (IOException | InterruptedException ex) {
+                // the follower is gone or was disconnected, it reconnects on its own
+            } finally {
+                disconnect(this);
+            }
+        }
+
+        /**
+         * Method to send the snapshot in frames of tasks
+         */
+        private void sendSnapshot(DataOutputStream out) throws IOException {
+            out.writeInt(1 + 20);
+            out.writeByte(SNAPSHOT);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotSequence);
+            out.writeInt(snapshot.size());
+            ByteBuffer tasks = ByteBuffer.allocate(FRAME_BYTES);
+            int count = 0;
+            tasks.position(FRAME_HEADER_SIZE + 4);
+            for (Task task : snapshot) {
+                byte[] name = TaskCodec.nameBytes(task);
+                if(tasks.remaining() < TaskCodec.taskSize(name)) {
+                    sendTasks(out, tasks, count);
+                    count = 0;
+                    if(tasks.capacity() < FRAME_HEADER_SIZE + 4 + TaskCodec.taskSize(name))
+                        tasks = ByteBuffer.allocate(FRAME_HEADER_SIZE + 4 + TaskCodec.taskSize(name));
+                    tasks.position(FRAME_HEADER_SIZE + 4);
+                }
+                TaskCodec.writeTask(tasks, task, name);
+                count++;
+            }
+            if(count > 0)
+                sendTasks(out, tasks, count);
+        }
+
+        private void sendTasks(DataOutputStream out, ByteBuffer tasks, int count) throws IOException {
+            tasks.putInt(0, tasks.position() - 4).put(4, TASKS).putInt(FRAME_HEADER_SIZE, count);
+            out.write(tasks.array(), 0, tasks.position());
+            tasks.clear();
+        }
+
+        /**
+         * Method to queue a frame, disconnecting the follower if too many frames are waiting
+         */
+        private void send(byte[] frame) {
+            if(!frames.offer(frame))
+                disconnect(this);
+        }
+    }
+
+    /**
+     * Constructor to start sending the changes of the list to followers connecting on the address
+     * @param taskList - list whose changes are sent, it must only be changed by one thread at a time
+     * @param address - address to listen on, port 0 picks a free port
+     * @throws IOException - if the address cannot be listened on
+     */
+    public ReplicationPrimary(TaskList taskList, InetSocketAddress address) throws IOException {
+        this.taskList = taskList;
+        ListAdt<Task> tasks = new ArrayList<>(Math.max(1, taskList.size()));
+        for (Task task : taskList) {
+            tasks.addItem(copyOf(task));
+        }
+        this.copy = PersistentList.copyOf(tasks);
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+        timer.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        taskList.addListener(this);
+        this.acceptor = new Thread(this::accept, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Method to get the port followers connect to
+     * @return port the primary listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Method to get the number of connected followers
+     * @return number of followers
+     */
+    public int followerCount() {
+        return followers.size();
+    }
+
+    /**
+     * Method to get the sequence number of the last change
+     * @return number of changes made since the primary started
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Method to send the records made so far without waiting for the frame to fill
+     */
+    public synchronized void flush() {
+        if(scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if(frame.position() == FRAME_HEADER_SIZE + 8)
+            return;
+        frame.putInt(0, frame.position() - 4).put(4, RECORDS).putLong(FRAME_HEADER_SIZE, frameStartMillis);
+        byte[] bytes = Arrays.copyOf(frame.array(), frame.position());
+        frame = newRecordsFrame();
+        for (Follower follower : followers) {
+            follower.send(bytes);
+        }
+    }
+
+    /**
+     * Method to stop following the list, send the remaining records and disconnect the followers
+     */
+    @Override
+    public void close() {
+        taskList.removeListener(this);
+        flush();
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            // the acceptor stops either way
+        }
+        for (Follower follower : followers) {
+            // an empty frame tells the sender to stop once the frames before it are sent
+            if(!follower.frames.offer(new byte[0]))
+                disconnect(follower);
+        }
+        timer.shutdownNow();
+    }
+
+    @Override
+    public synchronized void itemInserted(int index, Task task) {
+        copy = copy.plus(index, copyOf(task));
+        append(TaskCodec.OP_INSERT, index, task);
+    }
+
+    @Override
+    public synchronized void itemRemoved(int index, Task task) {
+        copy = copy.minus(index);
+        append(TaskCodec.OP_REMOVE, index, null);
+    }
+
+    @Override
+    public synchronized void itemSet(int index, Task oldTask, Task task) {
+        copy = copy.with(index, copyOf(task));
+        append(TaskCodec.OP_SET, index, task);
+    }
+
+    @Override
+    public synchronized void taskChanged(int index, Task task) {
+        copy = copy.with(index, copyOf(task));
+        append(TaskCodec.OP_SET, index, task);
+    }
+
+    private static Task copyOf(Task task) {
+        return new Task(task.getName(), task.getDueDate(), task.isDone());
+    }
+
+    private static ByteBuffer newRecordsFrame() {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+        frame.position(FRAME_HEADER_SIZE + 8);
+        return frame;
+    }
+
+    /**
+     * Method to add the record of a change to the frame, sending the frame when it is full.
+     * Records are made even without followers, so a follower that connects later gets the
+     * right sequence numbers
+     */
+    private void append(byte op, int index, Task task) {
+        byte[] name = task == null ? null : TaskCodec.nameBytes(task);
+        int recordSize = TaskCodec.recordSize(name);
+        if(frame.remaining() < recordSize) {
+            flush();
+            if(frame.remaining() < recordSize) {
+                frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + 8 + recordSize);
+                frame.position(FRAME_HEADER_SIZE + 8);
+            }
+        }
+        if(frame.position() == FRAME_HEADER_SIZE + 8)
+            frameStartMillis = System.currentTimeMillis();
+        TaskCodec.writeRecord(frame, crc, ++sequence, op, index, task, name);
+        if(followers.isEmpty()) {
+            // nobody to send to, the copy of the list has the change
+            frame.position(FRAME_HEADER_SIZE + 8);
+        } else if(scheduledFlush == null) {
+            scheduledFlush = timer.schedule(this::flush, MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Method to send the sequence number of the last change to the followers that have nothing
+     * else to receive
+     */
+    private synchronized void heartbeat() {
+        ByteBuffer heartbeat = ByteBuffer.allocate(FRAME_HEADER_SIZE + 16);
+        heartbeat.putInt(1 + 16).put(HEARTBEAT).putLong(sequence).putLong(System.currentTimeMillis());
+        for (Follower follower : followers) {
+            if(follower.frames.isEmpty())
+                follower.send(heartbeat.array());
+        }
+    }
+
+    /**
+     * Method to accept the followers until the primary is closed
+     */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Follower follower;
+                synchronized (this) {
+                    // records made before the snapshot go to the followers that came before it
+                    flush();
+                    follower = new Follower(socket, copy, sequence);
+                    followers.add(follower);
+                }
+                Thread sender = new Thread(follower, "replication-" + socket.getRemoteSocketAddress());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException ex) {
+                // the server socket was closed or the connection failed, try the next one
+            }
+        }
+    }
+
+    private void disconnect(Follower follower) {
+        followers.remove(follower);
+        try {
+            follower.socket.close();
+        } catch (IOException ex) {
+            // the follower is gone either way
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for the task server over loopback
+ * Starts a server on a free local port over an in memory list of tasks, then runs a number of
+ * clients that send a mix of listings, searches, additions and updates for a fixed time.
+ * Reports the throughput and the p50, p99 and max latency of each kind of request, and fails
+ * if any request was not answered successfully
+ *
+ * Usage: java ServerLoadTest [--tasks n] [--clients n] [--seconds n] [--list array|tiered|concurrent]
+ */
+public class ServerLoadTest {
+
+    // Kinds of requests sent by the clients, with their share of the requests in percent
+    private static final String[] KINDS = {"list page", "get", "search", "add", "update"};
+    private static final int[] SHARES = {55, 15, 15, 10, 5};
+
+    private static final String[] WORDS = {"invoice", "deploy", "review", "call", "email", "fix", "report", "meeting"};
+
+    private int taskCount = 100_000;
+    private int clients = 32;
+    private int seconds = 10;
+    private String listType = "array";
+
+    /**
+     * Latencies of one kind of request recorded by one client, in nanoseconds
+     */
+    private static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if(size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    private static ListAdt<Task> createList(String listType) {
+        switch (listType) {
+            case "array": return new ArrayList<>();
+            case "tiered": return new TieredArrayList<>();
+            case "concurrent": return new ConcurrentArrayList<>();
+            default: throw new IllegalArgumentException("Unknown list type : " + listType);
+        }
+    }
+
+    private static String randomName(Random random, int number) {
+        return WORDS[random.nextInt(WORDS.length)] + "-" + WORDS[random.nextInt(WORDS.length)] + "-" + number;
+    }
+
+    /**
+     * Method to run the load test and print the report
+     * @return true if every request succeeded
+     * @throws Exception - if the server cannot be started or a client fails
+     */
+    private boolean run() throws Exception {
+        TaskList taskList = new TaskList(createList(listType));
+        Random random = new Random(42);
+        LocalDate dueDate = LocalDate.now().plusYears(1);
+        for (int i = 0; i < taskCount; i++) {
+            taskList.addItem(new Task(randomName(random, i), dueDate));
+        }
+        TaskServer server = new TaskServer(taskList, null);
+        int port = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        String base = "http://127.0.0.1:" + port;
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+
+        Latencies[][] latencies = new Latencies[clients][KINDS.length];
+        AtomicLong failures = new AtomicLong();
+        AtomicLong added = new AtomicLong(taskCount);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int clientIndex = c;
+            for (int k = 0; k < KINDS.length; k++) {
+                latencies[c][k] = new Latencies();
+            }
+            threads[c] = new Thread(() -> {
+                Random clientRandom = new Random(clientIndex);
+                while (System.nanoTime() < deadline) {
+                    int kind = pickKind(clientRandom.nextInt(100));
+                    HttpRequest request = request(kind, base, clientRandom, added, dueDate);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        // a task may be removed by nobody here, so every answer should be a success
+                        if(response.statusCode() >= 300)
+                            failures.incrementAndGet();
+                    } catch (IOException ex) {
+                        failures.incrementAndGet();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    latencies[clientIndex][kind].add(System.nanoTime() - start);
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        server.stop(1);
+        report(latencies, failures.get());
+        return failures.get() == 0;
+    }
+
+    private static int pickKind(int percent) {
+        for (int k = 0; k < SHARES.length; k++) {
+            if(percent < SHARES[k])
+                return k;
+            percent -= SHARES[k];
+        }
+        return 0;
+    }
+
+    /**
+     * Method to build a request of the given kind
+     */
+    private HttpRequest request(int kind, String base, Random random, AtomicLong added, LocalDate dueDate) {
+        switch (kind) {
+            case 0:
+                return HttpRequest.newBuilder(URI.create(base + "/tasks?status=incomplete&limit=20&offset="
+                        + random.nextInt(1000))).GET().build();
+            case 1:
+                return HttpRequest.newBuilder(URI.create(base + "/tasks/" + (1 + random.nextInt(taskCount)))).GET().build();
+            case 2:
+                return HttpRequest.newBuilder(URI.create(base + "/tasks/search?limit=10&q="
+                        + WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(100))).GET().build();
+            case 3:
+                return HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + randomName(random, (int) added.incrementAndGet())
+                                + "\",\"dueDate\":\"" + dueDate + "\"}")).build();
+            default:
+                return HttpRequest.newBuilder(URI.create(base + "/tasks/" + (1 + random.nextInt(taskCount))))
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"done\":" + random.nextBoolean() + "}")).build();
+        }
+    }
+
+    /**
+     * Method to print the throughput and latency percentiles of every kind of request
+     */
+    private void report(Latencies[][] latencies, long failures) {
+        System.out.format("Server load test: %d tasks, %d clients, %d s, %s list, %s threads%n", taskCount, clients,
+                seconds, listType, TaskServer.newRequestExecutor().getClass().getSimpleName());
+        long total = 0;
+        long[] all = new long[0];
+        for (int k = 0; k <= KINDS.length; k++) {
+            long[] values;
+            if(k < KINDS.length) {
+                int count = 0;
+                for (Latencies[] client : latencies) {
+                    count += client[k].size;
+                }
+                values = new long[count];
+                int at = 0;
+                for (Latencies[] client : latencies) {
+                    System.arraycopy(client[k].values, 0, values, at, client[k].size);
+                    at += client[k].size;
+                }
+                long[] merged = Arrays.copyOf(all, all.length + values.length);
+                System.arraycopy(values, 0, merged, all.length, values.length);
+                all = merged;
+                total += count;
+            } else {
+                values = all;
+            }
+            Arrays.sort(values);
+            System.out.format("%-10s %9d requests %10.1f req/s  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms%n",
+                    k < KINDS.length ? KINDS[k] : "total", values.length, values.length / (double) seconds,
+                    percentile(values, 0.50), percentile(values, 0.99),
+                    values.length == 0 ? 0 : values[values.length - 1] / 1e6);
+        }
+        System.out.format("Failed requests: %d of %d%n", failures, total);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if(sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Main function of the load test
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        ServerLoadTest test = new ServerLoadTest();
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--tasks": test.taskCount = Integer.parseInt(args[++i]); break;
+                case "--clients": test.clients = Integer.parseInt(args[++i]); break;
+                case "--seconds": test.seconds = Integer.parseInt(args[++i]); break;
+                case "--list": test.listType = args[++i]; break;
+            }
+        }
+        System.exit(test.run() ? 0 : 1);
+    }
+}
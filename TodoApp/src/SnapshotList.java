@@ -0,0 +1,107 @@
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+/**
+ * Snapshot Implementation of List
+ * A mutable list over a persistent list: every change replaces the current version by a new
+ * one that shares most of its structure, so taking a snapshot is O(1) and each change costs
+ * O(log n) time and memory. Snapshots never change and can be read by any thread without
+ * locking while writers continue. Writers are serialized by the monitor of the list
+ * @param <E>
+ */
+public class SnapshotList<E> implements ListAdt<E> {
+
+    /**
+     * Current version of the list
+     */
+    private volatile PersistentList<E> current = PersistentList.empty();
+
+    /**
+     * Method to get the current version of the list, it is not changed by later writes
+     * @return read only snapshot of the list
+     */
+    public PersistentList<E> snapshot() {
+        return current;
+    }
+
+    @Override
+    public synchronized void addItem(E item) {
+        current = current.plus(item);
+    }
+
+    @Override
+    public synchronized void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        current = current.plus(index, item);
+    }
+
+    @Override
+    public synchronized E removeItem(int index) throws IndexOutOfBoundsException {
+        PersistentList<E> version = current;
+        E removed = version.getItem(index);
+        current = version.minus(index);
+        return removed;
+    }
+
+    @Override
+    public E getItem(int index) throws IndexOutOfBoundsException {
+        return current.getItem(index);
+    }
+
+    @Override
+    public synchronized E setItem(int index, E item) throws IndexOutOfBoundsException {
+        PersistentList<E> version = current;
+        E oldVal = version.getItem(index);
+        current = version.with(index, item);
+        return oldVal;
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    @Override
+    public boolean contains(E item) {
+        return current.contains(item);
+    }
+
+    /**
+     * Method to remove every item matching the filter, building the new version in one pass
+     * @param filter - returns true for the items to be removed
+     * @return number of items removed
+     */
+    @Override
+    public synchronized int removeIf(Predicate<? super E> filter) {
+        PersistentList<E> version = current;
+        ListAdt<E> kept = new ArrayList<>(Math.max(1, version.size()));
+        for (E item : version) {
+            if(!filter.test(item))
+                kept.addItem(item);
+        }
+        int removed = version.size() - kept.size();
+        if(removed > 0)
+            current = PersistentList.copyOf(kept);
+        return removed;
+    }
+
+    /**
+     * Method to get an iterator over the version current when it is called, later changes do
+     * not affect it
+     * @return iterator over the items
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return current.iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return current.spliterator();
+    }
+}
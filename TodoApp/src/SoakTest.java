@@ -0,0 +1,328 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Soak test of a list of tasks under a generated workload
+ * Fills a list with generated tasks, then applies a seeded mix of additions, removals,
+ * completions, lookups and page reads for a long time on one thread. Every interval the
+ * throughput, the latency percentiles of each operation, the collections of the interval, and
+ * the heap in use and the bytes of heap per task after a full collection are written to the
+ * report. The full collection is made between intervals and is not measured. At the end the
+ * second interval, the first one after warmup, is compared with the last: if the heap per
+ * task or the p99 latency kept growing, or the throughput fell, the run is reported as
+ * degraded and the test exits with 1, so slow leaks show up long before the heap is full
+ *
+ * Usage: java SoakTest [--tasks n] [--seconds n] [--interval n] [--seed n]
+ *            [--list array|tiered|concurrent|persistent|tasklist]
+ *            [--mix add=25,remove=25,complete=20,find=10,list=20] [--report path]
+ */
+public class SoakTest {
+
+    /**
+     * Default share of each operation, in the order of WorkloadGenerator.Operation
+     */
+    private static final String DEFAULT_MIX = "add=25,remove=25,complete=20,find=10,list=20";
+
+    /**
+     * Growth of the heap per task from the first to the last measured interval that is
+     * reported as degradation
+     */
+    private static final double MAX_HEAP_GROWTH = 1.25;
+
+    /**
+     * Growth of the p99 latency that is reported as degradation, the histogram buckets are a
+     * quarter wide so smaller growth is within the noise
+     */
+    private static final double MAX_LATENCY_GROWTH = 1.5;
+
+    /**
+     * Fall of the throughput from the first to the last measured interval that is reported as degradation
+     */
+    private static final double MIN_THROUGHPUT_RATIO = 0.75;
+
+    private int taskCount = 1_000_000;
+    private int seconds = 300;
+    private int interval = 10;
+    private long seed = 42;
+    private String listType = "array";
+    private String mix = DEFAULT_MIX;
+    private String reportPath = "soak-report.txt";
+
+    /**
+     * Garbage collections seen since the last interval, counted by the notification listener
+     */
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong gcMillis = new AtomicLong();
+    private final AtomicLong longestGcMillis = new AtomicLong();
+
+    /**
+     * Results of one interval
+     */
+    private static class Sample {
+        private double throughput;
+        private double bytesPerTask;
+        private double p99Micros;
+    }
+
+    private static ListAdt<Task> createList(String listType) {
+        switch (listType) {
+            case "array": return new ArrayList<>();
+            case "tiered": return new TieredArrayList<>();
+            case "concurrent": return new ConcurrentArrayList<>();
+            case "persistent": return new SnapshotList<>();
+            case "tasklist": return new TaskList();
+            default: throw new IllegalArgumentException("Unknown list type : " + listType);
+        }
+    }
+
+    /**
+     * Method to run the soak test and write the report
+     * @return true if no degradation was found
+     * @throws IOException - if the report cannot be written
+     */
+    private boolean run() throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator(seed, LocalDate.of(2026, 1, 1), WorkloadGenerator.parseMix(mix));
+        WorkloadGenerator.Operation[] operations = WorkloadGenerator.Operation.values();
+        LatencyHistogram[] latencies = new LatencyHistogram[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            latencies[i] = new LatencyHistogram(operations[i].name().toLowerCase());
+        }
+        LatencyHistogram[] totals = new LatencyHistogram[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            totals[i] = new LatencyHistogram(operations[i].name().toLowerCase());
+        }
+        listenToCollections();
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(Paths.get(reportPath), StandardCharsets.UTF_8))) {
+            line(report, String.format("Soak test: %d tasks, %d s, %s list, seed %d, mix %s", taskCount, seconds,
+                    listType, seed, mix));
+            ListAdt<Task> list = createList(listType);
+            long fillStart = System.nanoTime();
+            for (int i = 0; i < taskCount; i++) {
+                list.addItem(generator.nextTask());
+            }
+            long fillMillis = (System.nanoTime() - fillStart) / 1_000_000;
+            System.gc();
+            line(report, String.format("Filled in %d ms, heap after gc %.1f MB",
+                    fillMillis, heapAfterGc() / 1e6));
+            line(report, String.format("%8s %10s %9s %10s %10s %10s %10s %9s %9s %6s %8s %8s", "time s", "ops/s",
+                    "size", "p50 us", "p99 us", "p99.9 us", "max us", "heap MB", "B/task", "gcs", "gc ms", "max gc"));
+            resetCollections();
+            Sample warmup = null;
+            Sample first = null;
+            Sample last = null;
+            int found = 0;
+            int lookups = 0;
+            long start = System.nanoTime();
+            long deadline = start + seconds * 1_000_000_000L;
+            long intervalEnd = start + interval * 1_000_000_000L;
+            long intervalStart = start;
+            long operationCount = 0;
+            while (true) {
+                WorkloadGenerator.Operation operation = generator.nextOperation();
+                long operationStart = System.nanoTime();
+                if(operationStart >= intervalEnd || operationStart >= deadline) {
+                    Sample sample = sample(report, latencies, totals, list.size(), operationCount,
+                            operationStart - intervalStart, operationStart - start);
+                    if(warmup == null)
+                        warmup = sample;
+                    else if(first == null)
+                        first = sample;
+                    last = sample;
+                    if(operationStart >= deadline)
+                        break;
+                    operationCount = 0;
+                    intervalStart = System.nanoTime();
+                    intervalEnd = intervalStart + interval * 1_000_000_000L;
+                    operationStart = intervalStart;
+                }
+                switch (operation) {
+                    case ADD: list.addItem(generator.nextTask()); break;
+                    case REMOVE:
+                        if(!list.isEmpty())
+                            list.removeItem(generator.nextIndex(list.size()));
+                        break;
+                    case COMPLETE:
+                        if(!list.isEmpty())
+                            list.getItem(generator.nextIndex(list.size())).setDone(true);
+                        break;
+                    case FIND:
+                        lookups++;
+                        if(find(list, generator.nextExistingName()) != null)
+                            found++;
+                        break;
+                    case LIST: readPage(list, generator.nextPageOffset(list.size()), generator.getPageSize()); break;
+                }
+                latencies[operation.ordinal()].record(System.nanoTime() - operationStart);
+                operationCount++;
+            }
+            line(report, "");
+            line(report, String.format("%-10s %12s %10s %10s %10s %10s", "operation", "count", "mean us", "p50 us",
+                    "p99 us", "max us"));
+            for (LatencyHistogram histogram : totals) {
+                line(report, String.format("%-10s %12d %10.1f %10.1f %10.1f %10.1f", histogram.getName(),
+                        histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                        histogram.getP99Micros(), histogram.getMaxMicros()));
+            }
+            line(report, String.format("Found %d of %d lookups, %d tasks generated", found, lookups, generator.getGenerated()));
+            return degradation(report, first, last);
+        }
+    }
+
+    /**
+     * Method to write the line of an interval and start the next interval
+     */
+    private Sample sample(PrintWriter report, LatencyHistogram[] latencies, LatencyHistogram[] totals, int size,
+                         long operationCount, long elapsedNanos, long sinceStartNanos) {
+        LatencyHistogram all = new LatencyHistogram("all");
+        for (int i = 0; i < latencies.length; i++) {
+            all.merge(latencies[i]);
+            totals[i].merge(latencies[i]);
+            latencies[i].reset();
+        }
+        Sample sample = new Sample();
+        sample.throughput = operationCount / (elapsedNanos / 1e9);
+        long collections = gcCount.get();
+        long collectionMillis = gcMillis.get();
+        long longestCollection = longestGcMillis.get();
+        System.gc();
+        long heap = heapAfterGc();
+        sample.bytesPerTask = size == 0 ? 0 : heap / (double) size;
+        sample.p99Micros = all.getP99Micros();
+        line(report, String.format("%8.1f %10.0f %9d %10.1f %10.1f %10.1f %10.1f %9.1f %9.1f %6d %8d %8d",
+                sinceStartNanos / 1e9, sample.throughput, size, all.getP50Micros(), sample.p99Micros,
+                all.percentileNanos(0.999) / 1e3, all.getMaxMicros(), heap / 1e6, sample.bytesPerTask,
+                collections, collectionMillis, longestCollection));
+        resetCollections();
+        return sample;
+    }
+
+    /**
+     * Method to compare the last interval with the first one after warmup and report any degradation
+     * @return true if nothing degraded
+     */
+    private static boolean degradation(PrintWriter report, Sample first, Sample last) {
+        if(first == null || first == last) {
+            line(report, "Too few intervals to check for degradation");
+            return true;
+        }
+        boolean healthy = true;
+        if(first.bytesPerTask > 0 && last.bytesPerTask > first.bytesPerTask * MAX_HEAP_GROWTH) {
+            line(report, String.format("DEGRADED: heap per task grew from %.1f to %.1f bytes, a leak is likely",
+                    first.bytesPerTask, last.bytesPerTask));
+            healthy = false;
+        }
+        if(first.p99Micros > 0 && last.p99Micros > first.p99Micros * MAX_LATENCY_GROWTH) {
+            line(report, String.format("DEGRADED: p99 latency grew from %.1f to %.1f us", first.p99Micros, last.p99Micros));
+            healthy = false;
+        }
+        if(last.throughput < first.throughput * MIN_THROUGHPUT_RATIO) {
+            line(report, String.format("DEGRADED: throughput fell from %.0f to %.0f ops/s", first.throughput, last.throughput));
+            healthy = false;
+        }
+        if(healthy)
+            line(report, "No degradation found");
+        return healthy;
+    }
+
+    /**
+     * Method to find the first task with the name, through the name index of a task list
+     */
+    private static Task find(ListAdt<Task> list, String name) {
+        if(list instanceof TaskList)
+            return ((TaskList) list).findByName(name);
+        for (Task task : list) {
+            if(name.equalsIgnoreCase(task.getName()))
+                return task;
+        }
+        return null;
+    }
+
+    private static void readPage(ListAdt<Task> list, int offset, int pageSize) {
+        int end = Math.min(list.size(), offset + pageSize);
+        for (int i = offset; i < end; i++) {
+            if(list.getItem(i) == null)
+                throw new IllegalStateException("Missing task at index " + i);
+        }
+    }
+
+    /**
+     * Method to get the heap in use after the last garbage collection of each heap pool, which
+     * unlike the current use does not depend on when the collector last ran
+     */
+    private static long heapAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if(usage != null)
+                used += usage.getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Method to count every garbage collection and its duration as the collectors report them
+     */
+    private void listenToCollections() {
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+                return;
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData());
+            long millis = info.getGcInfo().getDuration();
+            gcCount.incrementAndGet();
+            gcMillis.addAndGet(millis);
+            longestGcMillis.accumulateAndGet(millis, Math::max);
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if(gc instanceof NotificationEmitter)
+                ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+    }
+
+    private void resetCollections() {
+        gcCount.set(0);
+        gcMillis.set(0);
+        longestGcMillis.set(0);
+    }
+
+    private static void line(PrintWriter report, String line) {
+        System.out.println(line);
+        report.println(line);
+        report.flush();
+    }
+
+    /**
+     * Main function of the soak test
+     * @param args
+     */
+    public static void main(String args[]) throws IOException {
+        SoakTest test = new SoakTest();
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--tasks": test.taskCount = Integer.parseInt(args[++i]); break;
+                case "--seconds": test.seconds = Integer.parseInt(args[++i]); break;
+                case "--interval": test.interval = Integer.parseInt(args[++i]); break;
+                case "--seed": test.seed = Long.parseLong(args[++i]); break;
+                case "--list": test.listType = args[++i]; break;
+                case "--mix": test.mix = args[++i]; break;
+                case "--report": test.reportPath = args[++i]; break;
+            }
+        }
+        System.exit(test.run() ? 0 : 1);
+    }
+}
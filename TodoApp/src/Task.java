@@ -1,5 +1,4 @@
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Class for TodoList Task Items
@@ -21,6 +20,11 @@ public class Task {
      */
     private LocalDate dueDate;
 
+    /**
+     * Observer of the task that is told about changes, set by the list holding the task
+     */
+    private TaskObserver observer;
+
     /**
      * Default constructor
      */
@@ -38,12 +42,27 @@ public class Task {
         this.done = false;
     }
 
+    /**
+     * Create a task object with all its fields, used by loaders to avoid the setters
+     * @param name
+     * @param dueDate
+     * @param done
+     */
+    public Task(String name, LocalDate dueDate, boolean done) {
+        this.name = name;
+        this.dueDate = dueDate;
+        this.done = done;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name){
+        String oldName = this.name;
         this.name = name;
+        if(observer != null)
+            observer.nameChanged(this, oldName);
     }
 
     public boolean isDone() {
@@ -51,7 +70,11 @@ public class Task {
     }
 
     public void setDone(boolean done) {
+        if(this.done == done)
+            return;
         this.done = done;
+        if(observer != null)
+            observer.doneChanged(this);
     }
 
     public LocalDate getDueDate() {
@@ -59,22 +82,51 @@ public class Task {
     }
 
     public void setDueDate(LocalDate dueDate) {
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        this.dueDate = LocalDate.parse(dueDate.format(dateTimeFormatter));
+        LocalDate oldDate = this.dueDate;
+        this.dueDate = dueDate;
+        if(observer != null)
+            observer.dueDateChanged(this, oldDate);
+    }
+
+    TaskObserver getObserver() {
+        return observer;
+    }
+
+    void setObserver(TaskObserver observer) {
+        this.observer = observer;
     }
 
     @Override
     public String toString() {
         return String.format("Name: %s" +
                 "\nDue Date: %s" +
-                "\nDone: %s\n", name, dueDate.toString(), done ? "Yes" : "No");
+                "\nDone: %s\n", getName(), getDueDate(), isDone() ? "Yes" : "No");
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Task)) return false;
         Task task = (Task) o;
-        return name.equalsIgnoreCase(task.name);
+        return getName().equalsIgnoreCase(task.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return getName() == null ? 0 : nameKey(getName()).hashCode();
+    }
+
+    /**
+     * Method to fold a task name into the key used for case insensitive lookups.
+     * Two names give the same key exactly when they are equal ignoring case
+     * @param name - name of the task
+     * @return case folded key of the name
+     */
+    static String nameKey(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
     }
 }
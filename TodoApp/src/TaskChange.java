@@ -0,0 +1,80 @@
+/**
+ * Change made to a task list, as published by TaskListPublisher
+ * A change keeps the values before and after it was made, so state derived from the list can
+ * be updated from the change alone, even when the task has changed again since
+ */
+public final class TaskChange {
+
+    /**
+     * Kinds of changes
+     */
+    public enum Kind {
+        /** A task was added or inserted, the new value is a copy of the task */
+        INSERTED,
+        /** A task was removed, the old value is a copy of the task */
+        REMOVED,
+        /** A task was replaced, the values are copies of the old and the new task */
+        SET,
+        /** A task was renamed, the values are the old and the new name */
+        RENAMED,
+        /** A task was marked done or not done, the values are the old and the new status */
+        DONE_CHANGED,
+        /** A task was given a new due date, the values are the old and the new date */
+        DUE_DATE_CHANGED
+    }
+
+    private final Kind kind;
+    private final int index;
+    private final Task task;
+    private final Object oldValue;
+    private final Object newValue;
+
+    /**
+     * Constructor to create a change
+     * @param kind - kind of the change
+     * @param index - index of the changed task at the time of the change
+     * @param task - task that was changed, inserted or removed, the new task if replaced
+     * @param oldValue - value before the change, null if none
+     * @param newValue - value after the change, null if none
+     */
+    public TaskChange(Kind kind, int index, Task task, Object oldValue, Object newValue) {
+        this.kind = kind;
+        this.index = index;
+        this.task = task;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Method to check if the change moves tasks in the list rather than changing one task
+     * @return true for inserted, removed and replaced tasks
+     */
+    public boolean isStructural() {
+        return kind == Kind.INSERTED || kind == Kind.REMOVED || kind == Kind.SET;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%d] %s -> %s", kind, index, oldValue, newValue);
+    }
+}
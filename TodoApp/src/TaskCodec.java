@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of tasks and of the change records of a task list
+ * A task is its name length and UTF-8 bytes, its due date as epoch day and its done flag. A
+ * record is the payload length and checksum followed by the payload: sequence number,
+ * operation, index and for inserted and set tasks the task. The same records are written to
+ * the log of the journal and sent to the followers of a replicated list
+ */
+class TaskCodec {
+
+    /**
+     * Size in bytes of the header of a record: payload length and checksum
+     */
+    static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * Size in bytes of the payload of a record without its task: sequence number, operation and index
+     */
+    static final int MIN_PAYLOAD_SIZE = 13;
+
+    // Operations of the records
+    static final byte OP_INSERT = 1;
+    static final byte OP_REMOVE = 2;
+    static final byte OP_SET = 3;
+
+    /**
+     * Marker for tasks without a due date
+     */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Builder of the decoded tasks and buffer their names are read into
+     */
+    private final TaskFactory.Builder taskBuilder = TaskFactory.shared().builder();
+    private final StringBuilder nameChars = new StringBuilder();
+
+    /**
+     * Method to get the encoded name of a task
+     * @param task - task to be encoded
+     * @return UTF-8 bytes of the name, empty if the task has no name
+     */
+    static byte[] nameBytes(Task task) {
+        return task.getName() == null ? new byte[0] : task.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method to get the size of an encoded task
+     * @param name - encoded name of the task
+     * @return size in bytes
+     */
+    static int taskSize(byte[] name) {
+        return name.length + 9;
+    }
+
+    /**
+     * Method to get the size of a record with its header
+     * @param name - encoded name of the task of the record, null if it has none
+     * @return size in bytes
+     */
+    static int recordSize(byte[] name) {
+        return RECORD_HEADER_SIZE + MIN_PAYLOAD_SIZE + (name == null ? 0 : taskSize(name));
+    }
+
+    /**
+     * Method to encode a task as name length and bytes, due date as epoch day and done flag
+     * @param buffer - buffer the task is written to
+     * @param task - task to be encoded
+     * @param name - encoded name of the task
+     */
+    static void writeTask(ByteBuffer buffer, Task task, byte[] name) {
+        buffer.putInt(task.getName() == null ? -1 : name.length);
+        buffer.put(name);
+        buffer.putInt(task.getDueDate() == null ? NO_DATE : Math.toIntExact(task.getDueDate().toEpochDay()));
+        buffer.put((byte) (task.isDone() ? 1 : 0));
+    }
+
+    /**
+     * Method to encode a checksummed record of one change, the buffer must have room for recordSize bytes
+     * @param buffer - heap buffer the record is written to
+     * @param crc - checksum to be reused
+     * @param sequence - sequence number of the change
+     * @param op - operation of the change
+     * @param index - index of the changed task
+     * @param task - new task for insert and set, null for remove
+     * @param name - encoded name of the task, null for remove
+     */
+    static void writeRecord(ByteBuffer buffer, CRC32 crc, long sequence, byte op, int index, Task task, byte[] name) {
+        int start = buffer.position();
+        int payloadSize = recordSize(name) - RECORD_HEADER_SIZE;
+        buffer.putInt(payloadSize).putInt(0);
+        buffer.putLong(sequence).put(op).putInt(index);
+        if(task != null)
+            writeTask(buffer, task, name);
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + RECORD_HEADER_SIZE, payloadSize);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Method to apply the change of a record payload to a list
+     * @param taskList - list the change is applied to
+     * @param payload - payload after its sequence number
+     * @throws IOException - if the operation is unknown
+     */
+    void applyRecord(ListAdt<Task> taskList, ByteBuffer payload) throws IOException {
+        byte op = payload.get();
+        int index = payload.getInt();
+        switch (op) {
+            case OP_INSERT: taskList.insertItem(index, readTask(payload)); break;
+            case OP_REMOVE: taskList.removeItem(index); break;
+            case OP_SET: taskList.setItem(index, readTask(payload)); break;
+            default: throw new IOException("Unknown operation in record : " + op);
+        }
+    }
+
+    /**
+     * Method to decode a task written by writeTask. Names of plain ASCII are read through a
+     * reused buffer, so names that were read before are shared and not decoded into a new string
+     * @param buffer - buffer positioned at the task
+     * @return decoded task
+     */
+    Task readTask(ByteBuffer buffer) {
+        int nameLength = buffer.getInt();
+        if(nameLength >= 0) {
+            nameChars.setLength(0);
+            int start = buffer.position();
+            for (int i = 0; i < nameLength; i++) {
+                byte b = buffer.get(start + i);
+                if(b < 0) {
+                    nameChars.setLength(0);
+                    break;
+                }
+                nameChars.append((char) b);
+            }
+            if(nameChars.length() == nameLength) {
+                buffer.position(start + nameLength);
+                taskBuilder.name(nameChars);
+            } else {
+                byte[] nameBytes = new byte[nameLength];
+                buffer.get(nameBytes);
+                taskBuilder.name(new String(nameBytes, StandardCharsets.UTF_8));
+            }
+        }
+        int day = buffer.getInt();
+        if(day != NO_DATE)
+            taskBuilder.dueDate(day);
+        return taskBuilder.done(buffer.get() == 1).build();
+    }
+}
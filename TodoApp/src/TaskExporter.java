@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streaming exporter of tasks to CSV and iCalendar VTODO files
+ * Records are built in one reused buffer and written out whenever it fills, so exporting a
+ * list of any size holds only one buffer of text at a time. The files are written in the
+ * formats read by TaskImporter
+ */
+public class TaskExporter {
+
+    /**
+     * Size of the record buffer after which it is written out
+     */
+    private static final int FLUSH_SIZE = 1 << 13;
+
+    /**
+     * Longest content line of an iCalendar file in chars, longer lines are folded
+     */
+    private static final int ICAL_LINE_LENGTH = 75;
+
+    /**
+     * Buffer reused for building records
+     */
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 256);
+
+    /**
+     * Last due date exported and its text, tasks often share due dates
+     */
+    private LocalDate lastDate;
+    private String lastDateText;
+    private String lastBasicDateText;
+
+    /**
+     * Method to export tasks to a file, files ending in .ics or .ical are written as VTODO and
+     * all others as CSV
+     * @param file - file to be written
+     * @param tasks - tasks to be exported
+     * @return number of tasks exported
+     * @throws IOException - if the file cannot be written
+     */
+    public long exportFile(Path file, ListAdt<Task> tasks) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            String name = file.getFileName().toString().toLowerCase();
+            if(name.endsWith(".ics") || name.endsWith(".ical"))
+                return exportVTodo(tasks, writer);
+            return exportCsv(tasks, writer);
+        }
+    }
+
+    /**
+     * Method to export tasks as CSV with a name,dueDate,done header
+     * @param tasks - tasks to be exported
+     * @param out - writer of the CSV text
+     * @return number of tasks exported
+     * @throws IOException - if the text cannot be written
+     */
+    public long exportCsv(ListAdt<Task> tasks, Writer out) throws IOException {
+        buffer.setLength(0);
+        buffer.append("name,dueDate,done\n");
+        long count = 0;
+        for (Task task : tasks) {
+            appendCsvName(task.getName());
+            buffer.append(',').append(dateText(task.getDueDate(), false))
+                    .append(',').append(task.isDone()).append('\n');
+            count++;
+            flushIfFull(out);
+        }
+        out.append(buffer);
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Method to export tasks as VTODO components of one iCalendar object
+     * @param tasks - tasks to be exported
+     * @param out - writer of the iCalendar text
+     * @return number of tasks exported
+     * @throws IOException - if the text cannot be written
+     */
+    public long exportVTodo(ListAdt<Task> tasks, Writer out) throws IOException {
+        String stamp = ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'"));
+        buffer.setLength(0);
+        buffer.append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//TodoApp//EN\r\n");
+        long count = 0;
+        for (Task task : tasks) {
+            count++;
+            buffer.append("BEGIN:VTODO\r\nUID:").append(count).append('-').append(stamp).append("@todoapp\r\n");
+            buffer.append("DTSTAMP:").append(stamp).append("\r\n");
+            appendSummary(task.getName());
+            if(task.getDueDate() != null)
+                buffer.append("DUE;VALUE=DATE:").append(dateText(task.getDueDate(), true)).append("\r\n");
+            buffer.append(task.isDone() ? "STATUS:COMPLETED\r\n" : "STATUS:NEEDS-ACTION\r\n");
+            buffer.append("END:VTODO\r\n");
+            flushIfFull(out);
+        }
+        buffer.append("END:VCALENDAR\r\n");
+        out.append(buffer);
+        out.flush();
+        return count;
+    }
+
+    private void flushIfFull(Writer out) throws IOException {
+        if(buffer.length() >= FLUSH_SIZE) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Method to add a CSV name field, quoted if it holds a comma, quote or line break
+     */
+    private void appendCsvName(String name) {
+        boolean quote = false;
+        for (int i = 0; i < name.length() && !quote; i++) {
+            char c = name.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        // names with surrounding spaces are quoted too, the importer trims unquoted fields
+        if(!quote && !name.isEmpty())
+            quote = name.charAt(0) == ' ' || name.charAt(name.length() - 1) == ' ';
+        if(!quote) {
+            buffer.append(name);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(c == '"')
+                buffer.append('"');
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Method to add the SUMMARY line of a task, escaped and folded to the iCalendar line length
+     */
+    private void appendSummary(String name) {
+        int lineStart = buffer.length();
+        buffer.append("SUMMARY:");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            int width = c == '\\' || c == ';' || c == ',' || c == '\n' ? 2 : 1;
+            // a continuation line starts with a space, which counts towards its length
+            if(buffer.length() - lineStart + width > ICAL_LINE_LENGTH
+                    && !Character.isLowSurrogate(c)) {
+                buffer.append("\r\n ");
+                lineStart = buffer.length() - 1;
+            }
+            switch (c) {
+                case '\\': buffer.append("\\\\"); break;
+                case ';': buffer.append("\\;"); break;
+                case ',': buffer.append("\\,"); break;
+                case '\n': buffer.append("\\n"); break;
+                case '\r': break;
+                default: buffer.append(c);
+            }
+        }
+        buffer.append("\r\n");
+    }
+
+    /**
+     * Method to get the text of a due date, as yyyy-mm-dd or as the yyyymmdd of iCalendar
+     */
+    private String dateText(LocalDate date, boolean basic) {
+        if(date == null)
+            return "";
+        if(!date.equals(lastDate)) {
+            lastDate = date;
+            lastDateText = date.toString();
+            lastBasicDateText = lastDateText.replace("-", "");
+        }
+        return basic ? lastBasicDateText : lastDateText;
+    }
+}
@@ -0,0 +1,272 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.temporal.ChronoField;
+
+/**
+ * Factory of tasks that shares repeated names and due dates
+ * Names are kept in a fixed size pool indexed by their hash, and a name given as any char
+ * sequence is only turned into a new string when it is not in the pool, so loading many tasks
+ * with repeated names allocates little more than the tasks themselves. Due dates of a window
+ * of days around today are created once and shared, and dates can be made from their fields
+ * or epoch day without creating a temporary date. The pools never grow, a name that collides
+ * with another simply replaces it. Strings and dates never change, so the pools can be used by
+ * many threads at once without locking: a lost update only costs a missed share
+ */
+public class TaskFactory {
+
+    /**
+     * Number of names in the pool
+     */
+    private static final int NAME_POOL_SIZE = 1 << 16;
+
+    /**
+     * Longest name kept in the pool, longer names are rarely repeated
+     */
+    private static final int MAX_POOLED_LENGTH = 64;
+
+    /**
+     * Number of days in the window of shared due dates, about 45 years on each side of today
+     */
+    private static final int DATE_RANGE = 1 << 15;
+
+    /**
+     * Factory shared by the whole application
+     */
+    private static final TaskFactory SHARED = new TaskFactory();
+
+    /**
+     * Pool of names by hash
+     */
+    private final String[] names = new String[NAME_POOL_SIZE];
+
+    /**
+     * Shared due dates by epoch day, starting at firstDay
+     */
+    private final LocalDate[] dates = new LocalDate[DATE_RANGE];
+    private final long firstDay;
+
+    /**
+     * Builder of tasks that is reused for every task it builds, it is not thread safe
+     */
+    public class Builder {
+        private String name;
+        private LocalDate dueDate;
+        private boolean done;
+
+        private Builder() {
+        }
+
+        /**
+         * Method to set the name of the next task
+         * @param name - name of the task, shared with earlier tasks of the same name
+         * @return this builder
+         */
+        public Builder name(CharSequence name) {
+            this.name = name == null ? null : TaskFactory.this.name(name, 0, name.length());
+            return this;
+        }
+
+        /**
+         * Method to set the name of the next task to a part of the given text
+         * @param text - text holding the name
+         * @param start - index of the first char of the name
+         * @param end - index after the last char of the name
+         * @return this builder
+         */
+        public Builder name(CharSequence text, int start, int end) {
+            this.name = TaskFactory.this.name(text, start, end);
+            return this;
+        }
+
+        /**
+         * Method to set the due date of the next task
+         * @param dueDate - due date, null for none
+         * @return this builder
+         */
+        public Builder dueDate(LocalDate dueDate) {
+            this.dueDate = date(dueDate);
+            return this;
+        }
+
+        /**
+         * Method to set the due date of the next task from its epoch day
+         * @param epochDay - due date as days since 1970-01-01
+         * @return this builder
+         */
+        public Builder dueDate(long epochDay) {
+            this.dueDate = date(epochDay);
+            return this;
+        }
+
+        /**
+         * Method to set if the next task is done
+         * @param done - true if the task is done
+         * @return this builder
+         */
+        public Builder done(boolean done) {
+            this.done = done;
+            return this;
+        }
+
+        /**
+         * Method to create the task and clear the builder for the next one
+         * @return new task
+         */
+        public Task build() {
+            Task task = new Task(name, dueDate, done);
+            name = null;
+            dueDate = null;
+            done = false;
+            return task;
+        }
+    }
+
+    /**
+     * Default constructor to create a factory with empty pools
+     */
+    public TaskFactory() {
+        firstDay = LocalDate.now().toEpochDay() - DATE_RANGE / 2;
+    }
+
+    /**
+     * Method to get the factory shared by the whole application
+     * @return shared factory
+     */
+    public static TaskFactory shared() {
+        return SHARED;
+    }
+
+    /**
+     * Method to create a builder using the pools of this factory
+     * @return new builder
+     */
+    public Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Method to create a task with a shared name and due date
+     * @param name - name of the task
+     * @param dueDate - due date, null for none
+     * @param done - true if the task is done
+     * @return new task
+     */
+    public Task create(CharSequence name, LocalDate dueDate, boolean done) {
+        return new Task(name == null ? null : name(name, 0, name.length()), date(dueDate), done);
+    }
+
+    /**
+     * Method to get the shared string with the chars of a part of the text, a new string is
+     * only created if the name is not in the pool
+     * @param text - text holding the name
+     * @param start - index of the first char of the name
+     * @param end - index after the last char of the name
+     * @return name
+     */
+    public String name(CharSequence text, int start, int end) {
+        int length = end - start;
+        if(length > MAX_POOLED_LENGTH)
+            return text.subSequence(start, end).toString();
+        // same hash as String, so whole strings use their cached hash
+        int hash;
+        if(text instanceof String && start == 0 && end == text.length()) {
+            hash = text.hashCode();
+        } else {
+            hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+        }
+        int slot = (hash ^ (hash >>> 16)) & (NAME_POOL_SIZE - 1);
+        String pooled = names[slot];
+        if(pooled != null && pooled.length() == length && regionEquals(pooled, text, start))
+            return pooled;
+        String name = text instanceof String && length == text.length()
+                ? (String) text : text.subSequence(start, end).toString();
+        names[slot] = name;
+        return name;
+    }
+
+    private static boolean regionEquals(String pooled, CharSequence text, int start) {
+        for (int i = 0; i < pooled.length(); i++) {
+            if(pooled.charAt(i) != text.charAt(start + i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method to get the shared date of the given epoch day
+     * @param epochDay - days since 1970-01-01
+     * @return due date
+     */
+    public LocalDate date(long epochDay) {
+        long offset = epochDay - firstDay;
+        if(offset < 0 || offset >= DATE_RANGE)
+            return LocalDate.ofEpochDay(epochDay);
+        LocalDate date = dates[(int) offset];
+        if(date == null) {
+            date = LocalDate.ofEpochDay(epochDay);
+            dates[(int) offset] = date;
+        }
+        return date;
+    }
+
+    /**
+     * Method to get the shared date equal to the given date
+     * @param date - due date, may be null
+     * @return shared due date, null if the date is null
+     */
+    public LocalDate date(LocalDate date) {
+        if(date == null)
+            return null;
+        long offset = date.toEpochDay() - firstDay;
+        if(offset < 0 || offset >= DATE_RANGE)
+            return date;
+        LocalDate shared = dates[(int) offset];
+        if(shared == null) {
+            dates[(int) offset] = date;
+            return date;
+        }
+        return shared;
+    }
+
+    /**
+     * Method to get the shared date with the given fields, without creating a temporary date
+     * @param year - year of the date
+     * @param month - month of the year, 1 to 12
+     * @param day - day of the month
+     * @return due date
+     * @throws DateTimeException - if the fields are not a valid date
+     */
+    public LocalDate date(int year, int month, int day) throws DateTimeException {
+        ChronoField.YEAR.checkValidValue(year);
+        ChronoField.MONTH_OF_YEAR.checkValidValue(month);
+        ChronoField.DAY_OF_MONTH.checkValidValue(day);
+        if(day > Month.of(month).length(Year.isLeap(year)))
+            throw new DateTimeException("Invalid date '" + Month.of(month) + " " + day + "' in year " + year);
+        return date(epochDay(year, month, day));
+    }
+
+    /**
+     * Method to count the days from 1970-01-01 to a valid date, as LocalDate.toEpochDay does
+     */
+    private static long epochDay(long year, long month, long day) {
+        long total = 365 * year;
+        if(year >= 0)
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        else
+            total -= year / -4 - year / -100 + year / -400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if(month > 2) {
+            total--;
+            if(!Year.isLeap(year))
+                total--;
+        }
+        // days from year 0 to 1970
+        return total - 719528;
+    }
+}
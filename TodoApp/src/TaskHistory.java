@@ -0,0 +1,252 @@
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+
+/**
+ * Undo and redo history of a task list
+ * Every change is kept as the small record needed to revert it, so a step costs memory in
+ * proportion to the tasks it touched and never a copy of the list. Changes made by one call on
+ * the list are grouped into one step. Reverting a step records the changes it makes as the step
+ * that redoes it, and the other way around. The history is capped by steps and by the changes
+ * recorded in all its steps, dropping the oldest steps first, so bulk changes of long lists
+ * cannot fill the heap with their records
+ */
+class TaskHistory {
+
+    /**
+     * Largest number of steps that can be undone
+     */
+    private static final int MAX_STEPS = 1000;
+
+    /**
+     * Largest number of changes kept in all undo and redo steps together, about 20 MB of
+     * records. The last step is kept even if it is larger on its own
+     */
+    private static final int MAX_CHANGES = 500_000;
+
+    // Kinds of changes
+    static final int INSERTED = 1;
+    static final int REMOVED = 2;
+    static final int SET = 3;
+    static final int RENAMED = 4;
+    static final int DONE_CHANGED = 5;
+    static final int DUE_DATE_CHANGED = 6;
+
+    /**
+     * One change and what is needed to revert it
+     */
+    static class Change {
+        final int kind;
+
+        /**
+         * Index of the changed task, or -1 if not known
+         */
+        final int index;
+
+        /**
+         * Task that was changed, inserted or removed
+         */
+        final Task task;
+
+        /**
+         * Old task, name, status or due date, depending on the kind
+         */
+        final Object old;
+
+        private Change(int kind, int index, Task task, Object old) {
+            this.kind = kind;
+            this.index = index;
+            this.task = task;
+            this.old = old;
+        }
+    }
+
+    /**
+     * Changes of one step in the order they were made
+     */
+    private static class Step {
+        private final ListAdt<Change> changes = new ArrayList<>();
+    }
+
+    private final ArrayDeque<Step> undoSteps = new ArrayDeque<>();
+    private final ArrayDeque<Step> redoSteps = new ArrayDeque<>();
+
+    /**
+     * Number of changes in the undo and in the redo steps
+     */
+    private long undoChanges;
+    private long redoChanges;
+
+    /**
+     * Step being recorded, null between steps
+     */
+    private Step open;
+
+    /**
+     * Number of nested steps being recorded
+     */
+    private int depth;
+
+    /**
+     * False when changes are not recorded at all
+     */
+    private boolean enabled = true;
+
+    /**
+     * True while a step is being undone, its changes are then recorded as a redo step
+     */
+    private boolean undoing;
+
+    /**
+     * True while a step is being redone, redo steps are then kept
+     */
+    private boolean redoing;
+
+    /**
+     * Method to start a step, changes until the matching endStep are undone together
+     */
+    void beginStep() {
+        if(depth++ == 0)
+            open = new Step();
+    }
+
+    /**
+     * Method to end a step started by beginStep
+     */
+    void endStep() {
+        if(--depth > 0)
+            return;
+        Step step = open;
+        open = null;
+        if(step.changes.isEmpty())
+            return;
+        if(undoing) {
+            redoSteps.push(step);
+            redoChanges += step.changes.size();
+        } else {
+            if(!redoing) {
+                redoSteps.clear();
+                redoChanges = 0;
+            }
+            undoSteps.push(step);
+            undoChanges += step.changes.size();
+            if(undoSteps.size() > MAX_STEPS)
+                undoChanges -= undoSteps.removeLast().changes.size();
+        }
+        trim(step);
+    }
+
+    /**
+     * Method to drop the oldest undo steps, then the oldest redo steps, until the changes
+     * kept are within the cap
+     * @param newest - step just recorded, which is never dropped
+     */
+    private void trim(Step newest) {
+        while (undoChanges + redoChanges > MAX_CHANGES) {
+            if(!undoSteps.isEmpty() && undoSteps.peekLast() != newest)
+                undoChanges -= undoSteps.removeLast().changes.size();
+            else if(!redoSteps.isEmpty() && redoSteps.peekLast() != newest)
+                redoChanges -= redoSteps.removeLast().changes.size();
+            else
+                break;
+        }
+    }
+
+    void inserted(int index, Task task) {
+        record(new Change(INSERTED, index, task, null));
+    }
+
+    void removed(int index, Task task) {
+        record(new Change(REMOVED, index, task, null));
+    }
+
+    void set(int index, Task oldTask, Task task) {
+        record(new Change(SET, index, task, oldTask));
+    }
+
+    void renamed(Task task, String oldName) {
+        record(new Change(RENAMED, -1, task, oldName));
+    }
+
+    void doneChanged(int index, Task task) {
+        record(new Change(DONE_CHANGED, index, task, !task.isDone()));
+    }
+
+    void dueDateChanged(Task task, LocalDate oldDate) {
+        record(new Change(DUE_DATE_CHANGED, -1, task, oldDate));
+    }
+
+    private void record(Change change) {
+        if(!enabled)
+            return;
+        beginStep();
+        open.changes.addItem(change);
+        endStep();
+    }
+
+    boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /**
+     * Method to take the last step to undo, the changes made while reverting it must be made
+     * between beginStep and endStep with undoing set
+     * @return changes of the step, last change first
+     */
+    ListAdt<Change> startUndo() {
+        undoing = true;
+        Step step = undoSteps.pop();
+        undoChanges -= step.changes.size();
+        return reversed(step);
+    }
+
+    /**
+     * Method to take the last step to redo
+     * @return changes of the step, last change first
+     */
+    ListAdt<Change> startRedo() {
+        redoing = true;
+        Step step = redoSteps.pop();
+        redoChanges -= step.changes.size();
+        return reversed(step);
+    }
+
+    /**
+     * Method to end an undo or redo
+     */
+    void finish() {
+        undoing = false;
+        redoing = false;
+    }
+
+    /**
+     * Method to start or stop recording changes, stopping forgets all steps
+     * @param enabled - true to record changes
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if(!enabled)
+            clear();
+    }
+
+    /**
+     * Method to forget all steps
+     */
+    void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        undoChanges = 0;
+        redoChanges = 0;
+    }
+
+    private static ListAdt<Change> reversed(Step step) {
+        ListAdt<Change> changes = new ArrayList<>(Math.max(1, step.changes.size()));
+        for (int i = step.changes.size() - 1; i >= 0; i--) {
+            changes.addItem(step.changes.getItem(i));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,461 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Streaming importer of tasks from CSV and iCalendar VTODO files
+ * The file is read in fixed size chunks into one char buffer. Every record is parsed from a
+ * view of the buffer without copying it. Names and due dates go through the task factory, so
+ * repeated names and dates are shared and only new names are turned into strings. Tasks
+ * are added to the list in batches, each with a single capacity reservation, and committed
+ * after every batch. Memory use only depends on the chunk and batch sizes, never on the file
+ * size
+ *
+ * CSV files have one task per record: name,dueDate,done with an optional header line. Names
+ * may be quoted with "" for a quote. VTODO files use SUMMARY, DUE and STATUS:COMPLETED or
+ * COMPLETED of each VTODO component
+ */
+public class TaskImporter {
+
+    /**
+     * Number of chars read from the file at once, also the longest record that can be read
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Number of tasks added to the list together
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Number of rejected records whose error is kept for the summary
+     */
+    private static final int MAX_ERRORS_SHOWN = 20;
+
+    /**
+     * List the tasks are imported into
+     */
+    private final TaskList taskList;
+
+    /**
+     * Journal the imported tasks are committed to, null if the tasks are only kept in memory
+     */
+    private final TaskJournal journal;
+
+    /**
+     * Tasks waiting to be added to the list
+     */
+    private ListAdt<Task> batch = new ArrayList<>(BATCH_SIZE);
+
+    /**
+     * Factory sharing the names and due dates of the imported tasks
+     */
+    private final TaskFactory factory = TaskFactory.shared();
+    private final TaskFactory.Builder taskBuilder = factory.builder();
+
+    /**
+     * Buffer quoted and escaped names are unescaped into
+     */
+    private final StringBuilder nameChars = new StringBuilder();
+
+    /**
+     * Buffer the current VTODO line is unfolded into
+     */
+    private final StringBuilder unfolded = new StringBuilder();
+
+    // State of the VTODO component being read
+    private boolean inTodo;
+    private String todoName;
+    private LocalDate todoDate;
+    private boolean todoDone;
+    private RuntimeException todoError;
+
+    /**
+     * Number of components nested in the VTODO being read
+     */
+    private int nestedDepth;
+
+    /**
+     * True until the first CSV record of an import is read, it may be a header
+     */
+    private boolean firstRecord;
+
+    // Counters for the summary
+    private long records;
+    private long imported;
+    private long rejected;
+    private final StringBuilder errors = new StringBuilder();
+
+    /**
+     * Interface of the handler of the records of a file
+     */
+    private interface RecordHandler {
+        /**
+         * Method to handle one record
+         * @param record - view of the record without its line terminator, only valid during the call
+         */
+        void record(CharSequence record);
+    }
+
+    /**
+     * Constructor to create an importer into the given list
+     * @param taskList - list the tasks are imported into
+     * @param journal - journal the tasks are committed to, null if none
+     */
+    public TaskImporter(TaskList taskList, TaskJournal journal) {
+        this.taskList = taskList;
+        this.journal = journal;
+    }
+
+    /**
+     * Method to import a file, files ending in .ics or .ical are read as VTODO and all others as CSV
+     * @param file - file to be imported
+     * @return number of tasks imported
+     * @throws IOException - if the file cannot be read
+     */
+    public long importFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String name = file.getFileName().toString().toLowerCase();
+            if(name.endsWith(".ics") || name.endsWith(".ical"))
+                return importVTodo(reader);
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Method to import tasks from CSV
+     * @param reader - reader of the CSV text
+     * @return number of tasks imported
+     * @throws IOException - if the text cannot be read
+     */
+    public long importCsv(Reader reader) throws IOException {
+        long before = imported;
+        firstRecord = true;
+        readRecords(reader, true, this::csvRecord);
+        flushBatch();
+        return imported - before;
+    }
+
+    /**
+     * Method to import the VTODO components of an iCalendar file
+     * @param reader - reader of the iCalendar text
+     * @return number of tasks imported
+     * @throws IOException - if the text cannot be read
+     */
+    public long importVTodo(Reader reader) throws IOException {
+        long before = imported;
+        unfolded.setLength(0);
+        inTodo = false;
+        nestedDepth = 0;
+        readRecords(reader, false, this::vtodoLine);
+        if(unfolded.length() > 0)
+            vtodoProperty(unfolded);
+        flushBatch();
+        return imported - before;
+    }
+
+    /**
+     * Method to get a summary of all imports done by this importer
+     * @return summary text
+     */
+    public String summary() {
+        return String.format("Imported %d of %d records, %d rejected\n%s", imported, records, rejected, errors);
+    }
+
+    /**
+     * Method to split the text into records and hand each one to the handler. Records end at
+     * a line break, outside of quotes when quoted is set
+     * @param reader - reader of the text
+     * @param quoted - true if line breaks within double quotes do not end a record
+     * @param handler - handler of the records
+     * @throws IOException - if the text cannot be read or a record is longer than a chunk
+     */
+    private void readRecords(Reader reader, boolean quoted, RecordHandler handler) throws IOException {
+        CharBuffer buffer = CharBuffer.allocate(CHUNK_SIZE);
+        CharBuffer view = buffer.duplicate();
+        boolean inQuotes = false;
+        // position up to which the buffer was scanned for the end of the current record
+        int scanned = 0;
+        boolean end = false;
+        while (!end) {
+            end = reader.read(buffer) < 0;
+            buffer.flip();
+            int start = 0;
+            int limit = buffer.limit();
+            for (int i = scanned; i < limit; i++) {
+                char c = buffer.get(i);
+                if(c == '"' && quoted) {
+                    inQuotes = !inQuotes;
+                } else if(c == '\n' && !inQuotes) {
+                    int recordEnd = i > start && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                    view.limit(recordEnd).position(start);
+                    handler.record(view);
+                    start = i + 1;
+                }
+            }
+            if(end && start < limit) {
+                view.limit(limit).position(start);
+                handler.record(view);
+                start = limit;
+            }
+            // keep the unfinished record at the start of the buffer
+            buffer.position(start);
+            buffer.compact();
+            scanned = buffer.position();
+            if(!end && !buffer.hasRemaining())
+                throw new IOException("Record longer than " + CHUNK_SIZE + " characters");
+            view = buffer.duplicate();
+        }
+    }
+
+    /**
+     * Method to import one CSV record
+     * @param record - view of the record
+     */
+    private void csvRecord(CharSequence record) {
+        if(record.length() == 0)
+            return;
+        int nameEnd = fieldEnd(record, 0);
+        if(firstRecord) {
+            firstRecord = false;
+            if(isHeader(record, nameEnd))
+                return;
+        }
+        records++;
+        try {
+            String name = name(record, 0, nameEnd);
+            if(nameEnd >= record.length())
+                throw new IllegalArgumentException("Due date is missing");
+            int dateEnd = fieldEnd(record, nameEnd + 1);
+            LocalDate dueDate = parseDate(record, nameEnd + 1, dateEnd);
+            boolean done = false;
+            if(dateEnd < record.length())
+                done = parseDone(record, dateEnd + 1, fieldEnd(record, dateEnd + 1));
+            addTask(name, dueDate, done);
+        } catch (RuntimeException ex) {
+            reject(ex);
+        }
+    }
+
+    private static boolean isHeader(CharSequence record, int nameEnd) {
+        return nameEnd == 4 && "name".contentEquals(record.subSequence(0, 4).toString().toLowerCase());
+    }
+
+    /**
+     * Method to find the end of the CSV field starting at the given position
+     * @return position of the comma ending the field or the length of the record
+     */
+    private static int fieldEnd(CharSequence record, int start) {
+        boolean inQuotes = false;
+        for (int i = start; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if(c == '"')
+                inQuotes = !inQuotes;
+            else if(c == ',' && !inQuotes)
+                return i;
+        }
+        return record.length();
+    }
+
+    /**
+     * Method to get the shared name of a CSV field, removing the quotes around it
+     */
+    private String name(CharSequence record, int start, int end) {
+        if(end - start >= 2 && record.charAt(start) == '"' && record.charAt(end - 1) == '"') {
+            nameChars.setLength(0);
+            for (int i = start + 1; i < end - 1; i++) {
+                char c = record.charAt(i);
+                nameChars.append(c);
+                // a quote inside a quoted field is written twice
+                if(c == '"' && i + 1 < end - 1 && record.charAt(i + 1) == '"')
+                    i++;
+            }
+            return factory.name(nameChars, 0, nameChars.length());
+        }
+        while (start < end && Character.isWhitespace(record.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(record.charAt(end - 1))) {
+            end--;
+        }
+        return factory.name(record, start, end);
+    }
+
+    private static boolean parseDone(CharSequence record, int start, int end) {
+        String value = record.subSequence(start, end).toString().trim();
+        if(value.isEmpty() || value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no"))
+            return false;
+        if(value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes"))
+            return true;
+        throw new IllegalArgumentException("Invalid done value " + value);
+    }
+
+    /**
+     * Method to parse a yyyy-mm-dd or yyyymmdd date from the digits of the record, sharing the
+     * date of earlier tasks due on the same day
+     * @return due date
+     * @throws DateTimeException - if the text is not a valid date
+     */
+    private LocalDate parseDate(CharSequence text, int start, int end) throws DateTimeException {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int number = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if(c >= '0' && c <= '9') {
+                number = number * 10 + (c - '0');
+                digits++;
+            } else if(c != '-' || (i - start != 4 && i - start != 7)) {
+                break;
+            }
+            if(digits == 8)
+                break;
+        }
+        if(digits != 8)
+            throw new DateTimeException("Invalid date " + text.subSequence(start, end));
+        return factory.date(number / 10000, number / 100 % 100, number % 100);
+    }
+
+    /**
+     * Method to handle one physical line of a VTODO file, lines starting with a space or tab
+     * continue the line before them
+     * @param line - view of the line
+     */
+    private void vtodoLine(CharSequence line) {
+        if(line.length() > 0 && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+            unfolded.append(line, 1, line.length());
+            return;
+        }
+        if(unfolded.length() > 0)
+            vtodoProperty(unfolded);
+        unfolded.setLength(0);
+        unfolded.append(line);
+    }
+
+    /**
+     * Method to handle one unfolded VTODO content line
+     * @param line - content line
+     */
+    private void vtodoProperty(CharSequence line) {
+        int colon = indexOf(line, ':');
+        if(colon < 0)
+            return;
+        int nameEnd = indexOf(line, ';');
+        if(nameEnd < 0 || nameEnd > colon)
+            nameEnd = colon;
+        String property = line.subSequence(0, nameEnd).toString().toUpperCase();
+        CharSequence value = line.subSequence(colon + 1, line.length());
+        if(property.equals("BEGIN")) {
+            if(inTodo) {
+                nestedDepth++;
+            } else if("VTODO".contentEquals(value)) {
+                inTodo = true;
+                todoName = null;
+                todoDate = null;
+                todoDone = false;
+                todoError = null;
+            }
+            return;
+        }
+        // properties of components inside the VTODO, such as alarms, are not the task's
+        if(!inTodo || (nestedDepth > 0 && !property.equals("END")))
+            return;
+        try {
+            switch (property) {
+                case "SUMMARY": todoName = unescape(value); break;
+                case "DUE": todoDate = parseDate(value, 0, Math.min(value.length(), 10)); break;
+                case "STATUS": todoDone |= "COMPLETED".contentEquals(value); break;
+                case "COMPLETED": todoDone = true; break;
+                case "END":
+                    if(nestedDepth > 0) {
+                        nestedDepth--;
+                        break;
+                    }
+                    inTodo = false;
+                    records++;
+                    if(todoError != null)
+                        throw todoError;
+                    if(todoDate == null)
+                        throw new IllegalArgumentException("Due date is missing");
+                    addTask(todoName, todoDate, todoDone);
+                    break;
+            }
+        } catch (RuntimeException ex) {
+            // an invalid property rejects the whole component when it ends
+            if(inTodo) {
+                if(todoError == null)
+                    todoError = ex;
+            } else {
+                reject(ex);
+            }
+        }
+    }
+
+    private static int indexOf(CharSequence text, char c) {
+        for (int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to get the shared value of an iCalendar text property, undoing its escapes
+     */
+    private String unescape(CharSequence line) {
+        nameChars.setLength(0);
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                nameChars.append(escaped == 'n' || escaped == 'N' ? ' ' : escaped);
+            } else {
+                nameChars.append(c);
+            }
+        }
+        return factory.name(nameChars, 0, nameChars.length());
+    }
+
+    /**
+     * Method to validate a task and add it to the batch. Completed tasks keep past due dates,
+     * incomplete tasks follow the same rules as tasks added from the menu
+     */
+    private void addTask(String name, LocalDate dueDate, boolean done) {
+        if(name == null || name.isBlank())
+            throw new NullPointerException("Name for the task is required field");
+        if(!done)
+            TodoList.validateTask(name, dueDate);
+        batch.addItem(taskBuilder.name(name).dueDate(dueDate).done(done).build());
+        if(batch.size() >= BATCH_SIZE)
+            flushBatch();
+    }
+
+    /**
+     * Method to add the batch to the list with one capacity reservation and commit it
+     */
+    private void flushBatch() {
+        if(batch.isEmpty())
+            return;
+        taskList.addAll(batch);
+        imported += batch.size();
+        batch = new ArrayList<>(BATCH_SIZE);
+        if(journal != null)
+            journal.commit();
+    }
+
+    private void reject(RuntimeException ex) {
+        rejected++;
+        if(rejected <= MAX_ERRORS_SHOWN)
+            errors.append(String.format("ERROR: record %d: %s\n", records, ex.getMessage()));
+    }
+}
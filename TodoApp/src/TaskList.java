@@ -0,0 +1,939 @@
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * List of tasks that keeps a case insensitive name index, a due date index and the count of
+ * completed tasks in sync with the list, so tasks can be looked up by name or due date and
+ * counted by status without scanning the whole list
+ */
+public class TaskList implements ListAdt<Task>, TaskObserver {
+
+    /**
+     * List where the tasks are stored
+     */
+    private ListAdt<Task> tasks;
+
+    /**
+     * Index of tasks by their case folded name, tasks sharing a name are kept in insertion order
+     */
+    private Map<String, ListAdt<Task>> nameIndex = new HashMap<>();
+
+    /**
+     * Index for searching tasks by fragments of their name, built on the first search so lists
+     * that are never searched do not pay for it. Searches are reads, so readers sharing the list
+     * under a read lock may build it together: it is built under the lock of the list and only
+     * published once complete
+     */
+    private volatile NameSearchIndex searchIndex;
+
+    /**
+     * Index of tasks by due date
+     */
+    private DueDateIndex dueDateIndex = new DueDateIndex();
+
+    /**
+     * Number of tasks in the list that are marked done
+     */
+    private int doneCount;
+
+    /**
+     * Number of null entries in the list, which are neither completed nor incomplete tasks
+     */
+    private int nullCount;
+
+    /**
+     * Number of changes made to the list or the status of its tasks, used by the views to
+     * know when their cached position is no longer valid
+     */
+    private int modCount;
+
+    /**
+     * Live view of the completed tasks
+     */
+    private ListAdt<Task> completedTasks = new StatusView(true);
+
+    /**
+     * Live view of the incomplete tasks
+     */
+    private ListAdt<Task> incompleteTasks = new StatusView(false);
+
+    /**
+     * Size from which select runs its filter in parallel on the fork join pool
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * Index of the task being changed by a bulk update, so listeners can be told the index
+     * without searching for the task, -1 if no bulk update is running
+     */
+    private int changingIndex = -1;
+
+    /**
+     * Index of the task last read through getItem or a status view, tasks are usually changed
+     * right after they are read, so listeners can be told their index without a search
+     */
+    private int lastReadIndex = -1;
+
+    /**
+     * Changes that can be undone and redone
+     */
+    private TaskHistory history = new TaskHistory();
+
+    /**
+     * Listeners told about every change made to the list
+     */
+    private ListAdt<TaskListListener> listeners = new ArrayList<>();
+
+    /**
+     * Default constructor to create an empty task list
+     */
+    public TaskList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructor to create a task list over the given list
+     * @param tasks - list where the tasks will be stored, must be empty and keep the tasks
+     *              themselves, not copies of them
+     */
+    public TaskList(ListAdt<Task> tasks) {
+        if(!tasks.isEmpty())
+            throw new IllegalArgumentException("Task list must be created over an empty list");
+        this.tasks = tasks;
+    }
+
+    /**
+     * Method to add new task to the list
+     * @param task - new task to be added
+     * @throws IllegalArgumentException - if the task is already in a list
+     */
+    @Override
+    public void addItem(Task task) throws IllegalArgumentException {
+        checkNotListed(task);
+        tasks.addItem(task);
+        attach(task);
+        history.inserted(tasks.size() - 1, task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).itemInserted(tasks.size() - 1, task);
+        }
+    }
+
+    /**
+     * Method to insert a task at given index
+     * @param index - index where the task needs to be inserted
+     * @param task - new task to be inserted
+     * @throws IndexOutOfBoundsException - if invalid index
+     * @throws IllegalArgumentException - if the task is already in a list
+     */
+    @Override
+    public void insertItem(int index, Task task) throws IndexOutOfBoundsException, IllegalArgumentException {
+        checkNotListed(task);
+        tasks.insertItem(index, task);
+        attach(task);
+        history.inserted(index, task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).itemInserted(index, task);
+        }
+    }
+
+    /**
+     * Method to remove a task at given index
+     * @param index - index of the task to be removed
+     * @return removed task
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public Task removeItem(int index) throws IndexOutOfBoundsException {
+        Task removed = tasks.removeItem(index);
+        detach(removed);
+        history.removed(index, removed);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).itemRemoved(index, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Method to get task by given index
+     * @param index - index of task
+     * @return task at given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public Task getItem(int index) throws IndexOutOfBoundsException {
+        Task task = tasks.getItem(index);
+        lastReadIndex = index;
+        return task;
+    }
+
+    /**
+     * Method to set task at given index
+     * @param index - index where new task needs to be set
+     * @param task - the task to be set
+     * @return old task present at the given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     * @throws IllegalArgumentException - if the task is already in a list, other than at the index
+     */
+    @Override
+    public Task setItem(int index, Task task) throws IndexOutOfBoundsException, IllegalArgumentException {
+        if(task == null || task != tasks.getItem(index))
+            checkNotListed(task);
+        Task oldTask = tasks.setItem(index, task);
+        detach(oldTask);
+        attach(task);
+        history.set(index, oldTask, task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).itemSet(index, oldTask, task);
+        }
+        return oldTask;
+    }
+
+    /**
+     * Method to return the number of tasks in the list
+     * @return size of the list
+     */
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Method to check if list is empty
+     * @return true if empty else false
+     */
+    @Override
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    /**
+     * Method to add all tasks of another list, reserving room for them once. The tasks are
+     * checked before any is added
+     * @param newTasks - tasks to be added
+     * @throws IllegalArgumentException - if a task is already in a list or given twice
+     */
+    @Override
+    public void addAll(ListAdt<? extends Task> newTasks) throws IllegalArgumentException {
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < newTasks.size(); i++) {
+            Task task = newTasks.getItem(i);
+            checkNotListed(task);
+            if(task != null && !seen.add(task))
+                throw new IllegalArgumentException("Task is given twice : " + task.getName());
+        }
+        tasks.ensureCapacity(tasks.size() + newTasks.size());
+        history.beginStep();
+        try {
+            for (int i = 0; i < newTasks.size(); i++) {
+                addItem(newTasks.getItem(i));
+            }
+        } finally {
+            history.endStep();
+        }
+    }
+
+    /**
+     * Method to add a task read from storage at the end of the list, indexing it without
+     * recording it for undo or telling the listeners, since loading stored tasks is not a change
+     * of the list. Loaders reserve room for all tasks with ensureCapacity first
+     * @param task - task to be added
+     */
+    void load(Task task) {
+        checkNotListed(task);
+        tasks.addItem(task);
+        attach(task);
+    }
+
+    /**
+     * Method to remove every task matching the filter in a single pass over the list
+     * @param filter - returns true for the tasks to be removed
+     * @return number of tasks removed
+     */
+    @Override
+    public int removeIf(Predicate<? super Task> filter) {
+        ListAdt<Task> removedTasks = new ArrayList<>();
+        ListAdt<Integer> removedIndexes = new ArrayList<>();
+        int[] position = {0};
+        int removed = tasks.removeIf(task -> {
+            int index = position[0]++;
+            if(!filter.test(task))
+                return false;
+            removedTasks.addItem(task);
+            // index of the task once the tasks before it have been removed
+            removedIndexes.addItem(index - removedIndexes.size());
+            return true;
+        });
+        history.beginStep();
+        try {
+            for (int i = 0; i < removedTasks.size(); i++) {
+                Task task = removedTasks.getItem(i);
+                detach(task);
+                history.removed(removedIndexes.getItem(i), task);
+                for (int j = 0; j < listeners.size(); j++) {
+                    listeners.getItem(j).itemRemoved(removedIndexes.getItem(i), task);
+                }
+            }
+        } finally {
+            history.endStep();
+        }
+        return removed;
+    }
+
+    /**
+     * Method to reserve room in the underlying list
+     * @param minCapacity - number of tasks the list should be able to hold
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        tasks.ensureCapacity(minCapacity);
+    }
+
+    /**
+     * Method to release the room reserved in the underlying list
+     */
+    @Override
+    public void trimToSize() {
+        tasks.trimToSize();
+    }
+
+    /**
+     * Method to mark every incomplete task matching the filter as done in a single pass
+     * @param filter - returns true for the tasks to be marked done
+     * @return number of tasks marked done
+     */
+    public int markDoneIf(Predicate<? super Task> filter) {
+        int marked = 0;
+        history.beginStep();
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.getItem(i);
+                if(task != null && !task.isDone() && filter.test(task)) {
+                    changingIndex = i;
+                    task.setDone(true);
+                    marked++;
+                }
+            }
+        } finally {
+            changingIndex = -1;
+            history.endStep();
+        }
+        return marked;
+    }
+
+    /**
+     * Method to change the fields of the task at given index, the changes are undone together
+     * and listeners are told the index without searching for the task
+     * @param index - index of the task to be changed
+     * @param change - action calling the setters of the task
+     * @return changed task
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    public Task updateItem(int index, Consumer<? super Task> change) throws IndexOutOfBoundsException {
+        Task task = tasks.getItem(index);
+        int outerIndex = changingIndex;
+        history.beginStep();
+        try {
+            changingIndex = index;
+            change.accept(task);
+        } finally {
+            changingIndex = outerIndex;
+            history.endStep();
+        }
+        return task;
+    }
+
+    /**
+     * Method to get an iterator over the tasks of the underlying list
+     * @return iterator over the tasks
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return tasks.iterator();
+    }
+
+    /**
+     * Method to get a spliterator over the tasks of the underlying list
+     * @return spliterator over the tasks
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        return tasks.spliterator();
+    }
+
+    /**
+     * Method to get the tasks matching the filter, in list order. Long lists are filtered in
+     * parallel on the fork join pool
+     * @param filter - returns true for the tasks to be selected
+     * @return new list of the matching tasks
+     */
+    public ListAdt<Task> select(Predicate<? super Task> filter) {
+        Stream<Task> stream = tasks.size() >= PARALLEL_THRESHOLD ? parallelStream() : stream();
+        return stream.filter(filter).collect(Collector.of(ArrayList<Task>::new, ListAdt::addItem,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                }));
+    }
+
+    /**
+     * Method to check if a task with the same name is present in the list
+     * @param task - task that needs to be checked
+     * @return true if exist else false
+     */
+    @Override
+    public boolean contains(Task task) {
+        return task != null && task.getName() != null && containsName(task.getName());
+    }
+
+    /**
+     * Method to check if a task with the given name is present, ignoring case
+     * @param name - name of the task
+     * @return true if exist else false
+     */
+    public boolean containsName(String name) {
+        return nameIndex.containsKey(Task.nameKey(name));
+    }
+
+    /**
+     * Method to find the first added task with the given name, ignoring case
+     * @param name - name of the task
+     * @return task with the given name or null if no task is found
+     */
+    public Task findByName(String name) {
+        ListAdt<Task> sameName = nameIndex.get(Task.nameKey(name));
+        return sameName == null ? null : sameName.getItem(0);
+    }
+
+    /**
+     * Method to search the tasks whose name contains the fragment, ignoring case. Exact matches
+     * come first, then names starting with the fragment, then other names containing it, and
+     * shorter names first within each group. Fragments shorter than three letters only match
+     * names starting with them
+     * @param fragment - part of the name to look for
+     * @param limit - largest number of results
+     * @return ranked matching tasks
+     */
+    public ListAdt<Task> search(String fragment, int limit) {
+        ListAdt<Task> results = new ArrayList<>();
+        searchIndex().search(fragment, limit, results);
+        return results;
+    }
+
+    /**
+     * Method to get the tasks due between two dates, in order of due date
+     * @param from - first due date, inclusive
+     * @param to - last due date, inclusive
+     * @param includeDone - true to include completed tasks
+     * @return tasks due between the dates
+     */
+    public ListAdt<Task> dueBetween(LocalDate from, LocalDate to, boolean includeDone) {
+        ListAdt<Task> dueTasks = new ArrayList<>();
+        dueDateIndex.collect(from, to, includeDone, Integer.MAX_VALUE, dueTasks);
+        return dueTasks;
+    }
+
+    /**
+     * Method to get the incomplete tasks that were due before the given day, in order of due date
+     * @param today - current date
+     * @return overdue tasks
+     */
+    public ListAdt<Task> overdue(LocalDate today) {
+        ListAdt<Task> overdueTasks = new ArrayList<>();
+        dueDateIndex.collect(null, today.minusDays(1), false, Integer.MAX_VALUE, overdueTasks);
+        return overdueTasks;
+    }
+
+    /**
+     * Method to get the next incomplete tasks due on or after the given day, in order of due date
+     * @param from - first due date to include
+     * @param count - number of tasks to get
+     * @return at most count tasks due next
+     */
+    public ListAdt<Task> nextDue(LocalDate from, int count) {
+        ListAdt<Task> dueTasks = new ArrayList<>();
+        dueDateIndex.collect(from, null, false, count, dueTasks);
+        return dueTasks;
+    }
+
+    /**
+     * Method to start a query over the tasks of the list, see TaskQuery
+     * @return query matching every task until conditions are added
+     */
+    public TaskQuery query() {
+        return new TaskQuery(this);
+    }
+
+    /**
+     * Method to count the tasks due between two dates, stopping early once the count is over cap
+     */
+    int countDue(LocalDate from, LocalDate to, boolean includeDone, int cap) {
+        return dueDateIndex.count(from, to, includeDone, cap);
+    }
+
+    /**
+     * Method to read the tasks due between two dates in order of due date, as they are asked for
+     */
+    Iterator<Task> dueIterator(LocalDate from, LocalDate to, boolean includeDone) {
+        return dueDateIndex.iterator(from, to, includeDone);
+    }
+
+    /**
+     * Method to count the tasks sharing the rarest trigram of the fragment, stopping early once
+     * the count is over cap, -1 if the fragment is too short to use the name index
+     */
+    int countNameCandidates(String fragment, int cap) {
+        return searchIndex().countCandidates(fragment, cap);
+    }
+
+    /**
+     * Method to read the tasks sharing the rarest trigram of the fragment
+     */
+    Iterator<Task> nameCandidates(String fragment) {
+        return searchIndex().candidates(fragment);
+    }
+
+    /**
+     * Method to get the name search index, building it from the name index on first use. Only
+     * reads of the list may run at the same time as the build, so the name index is not changed
+     * while it is read
+     */
+    private NameSearchIndex searchIndex() {
+        NameSearchIndex index = searchIndex;
+        if(index != null)
+            return index;
+        synchronized (this) {
+            if(searchIndex == null)
+                searchIndex = new NameSearchIndex(nameIndex);
+            return searchIndex;
+        }
+    }
+
+    /**
+     * Method to get the number of changes to the list or the status of its tasks, used to
+     * detect changes made while reading
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Method to find the index of a task in the list, comparing by identity rather than by name
+     * @param task - task to look for
+     * @return index of the task or -1 if the task is not in the list
+     */
+    public int indexOf(Task task) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if(tasks.getItem(i) == task)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to get a read only copy of the list as it is now, later changes to the list do
+     * not affect it. Taking the copy is O(1) when the tasks are stored in a snapshot list and
+     * O(n) otherwise. The tasks themselves are shared, so changes to their fields are seen
+     * @return snapshot of the list
+     */
+    public ListAdt<Task> snapshot() {
+        if(tasks instanceof SnapshotList)
+            return ((SnapshotList<Task>) tasks).snapshot();
+        return PersistentList.copyOf(tasks);
+    }
+
+    /**
+     * Method to undo the last change made by one call on the list or one task setter
+     * @return true if a change was undone, false if there is nothing to undo
+     */
+    public boolean undo() {
+        if(!history.canUndo())
+            return false;
+        revert(history.startUndo());
+        return true;
+    }
+
+    /**
+     * Method to redo the last change undone, possible until a new change is made
+     * @return true if a change was redone, false if there is nothing to redo
+     */
+    public boolean redo() {
+        if(!history.canRedo())
+            return false;
+        revert(history.startRedo());
+        return true;
+    }
+
+    /**
+     * Method to forget all changes that could be undone or redone, used after loading tasks
+     */
+    public void clearHistory() {
+        history.clear();
+    }
+
+    /**
+     * Method to start or stop keeping the changes that can be undone, for lists that are only
+     * changed by replaying changes made elsewhere. Stopping forgets the changes kept so far
+     * @param enabled - true to keep the changes
+     */
+    public void setHistoryEnabled(boolean enabled) {
+        history.setEnabled(enabled);
+    }
+
+    /**
+     * Method to revert the changes of one step, last change first
+     * @param changes - changes of the step in reverse order
+     */
+    private void revert(ListAdt<TaskHistory.Change> changes) {
+        history.beginStep();
+        try {
+            for (int i = 0; i < changes.size(); i++) {
+                TaskHistory.Change change = changes.getItem(i);
+                switch (change.kind) {
+                    case TaskHistory.INSERTED: removeItem(change.index); break;
+                    case TaskHistory.REMOVED: insertItem(change.index, change.task); break;
+                    case TaskHistory.SET: setItem(change.index, (Task) change.old); break;
+                    case TaskHistory.RENAMED: change.task.setName((String) change.old); break;
+                    case TaskHistory.DUE_DATE_CHANGED: change.task.setDueDate((LocalDate) change.old); break;
+                    case TaskHistory.DONE_CHANGED:
+                        changingIndex = change.index;
+                        try {
+                            change.task.setDone((Boolean) change.old);
+                        } finally {
+                            changingIndex = -1;
+                        }
+                        break;
+                }
+            }
+        } finally {
+            history.endStep();
+            history.finish();
+        }
+    }
+
+    /**
+     * Method to register a listener to be told about every change made to the list
+     * @param listener - listener to be added
+     */
+    public void addListener(TaskListListener listener) {
+        listeners.addItem(listener);
+    }
+
+    /**
+     * Method to stop telling a listener about changes made to the list
+     * @param listener - listener to be removed
+     */
+    public void removeListener(TaskListListener listener) {
+        for (int i = 0; i < listeners.size(); i++) {
+            if(listeners.getItem(i) == listener) {
+                listeners.removeItem(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method to return the number of completed tasks
+     * @return number of tasks marked done
+     */
+    public int completedCount() {
+        return doneCount;
+    }
+
+    /**
+     * Method to return the number of incomplete tasks
+     * @return number of tasks not marked done, null entries are not counted
+     */
+    public int incompleteCount() {
+        return tasks.size() - doneCount - nullCount;
+    }
+
+    /**
+     * Method to get a live read only view of the completed tasks, the view is not a copy
+     * and reflects later changes to the list
+     * @return view of the completed tasks
+     */
+    public ListAdt<Task> completedTasks() {
+        return completedTasks;
+    }
+
+    /**
+     * Method to get a live read only view of the incomplete tasks, the view is not a copy
+     * and reflects later changes to the list
+     * @return view of the incomplete tasks
+     */
+    public ListAdt<Task> incompleteTasks() {
+        return incompleteTasks;
+    }
+
+    /**
+     * Method to update the name index when a task in the list is renamed
+     * @param task - task that was changed
+     * @param oldName - name of the task before the change
+     */
+    @Override
+    public void nameChanged(Task task, String oldName) {
+        unindexName(task, oldName);
+        indexName(task);
+        history.renamed(task, oldName);
+        if(listeners.isEmpty())
+            return;
+        int index = changedIndex(task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).taskRenamed(index, task, oldName);
+        }
+    }
+
+    /**
+     * Method to update the status counters when a task in the list is marked done or not done
+     * @param task - task that was changed
+     */
+    @Override
+    public void doneChanged(Task task) {
+        dueDateIndex.doneChanged(task);
+        doneCount += task.isDone() ? 1 : -1;
+        modCount++;
+        history.doneChanged(changingIndex, task);
+        if(listeners.isEmpty())
+            return;
+        int index = changedIndex(task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).taskDoneChanged(index, task);
+        }
+    }
+
+    /**
+     * Method to update the due date index when a task in the list is given a new due date
+     * @param task - task that was changed
+     * @param oldDate - due date of the task before the change
+     */
+    @Override
+    public void dueDateChanged(Task task, LocalDate oldDate) {
+        dueDateIndex.dueDateChanged(task, oldDate);
+        history.dueDateChanged(task, oldDate);
+        if(listeners.isEmpty())
+            return;
+        int index = changedIndex(task);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.getItem(i).taskDueDateChanged(index, task, oldDate);
+        }
+    }
+
+    /**
+     * Method to find the index of a changed task for the listeners, using the index of the
+     * update in progress or of the last read when it holds the task, and searching the list
+     * only for tasks changed without being read through the list
+     * @param task - task that was changed
+     * @return index of the task
+     */
+    private int changedIndex(Task task) {
+        if(holds(changingIndex, task))
+            return changingIndex;
+        int readIndex = lastReadIndex;
+        return holds(readIndex, task) ? readIndex : indexOf(task);
+    }
+
+    private boolean holds(int index, Task task) {
+        return index >= 0 && index < tasks.size() && tasks.getItem(index) == task;
+    }
+
+    /**
+     * Method to refuse a task that is already in this or another task list. A task has a
+     * single observer, so a task held twice would stop being tracked once one of them is removed
+     * @param task - task to be added
+     * @throws IllegalArgumentException - if the task is already in a list
+     */
+    private static void checkNotListed(Task task) throws IllegalArgumentException {
+        if(task != null && task.getObserver() != null)
+            throw new IllegalArgumentException("Task is already in a list : " + task.getName());
+    }
+
+    /**
+     * Method to start tracking a task that was added to the list
+     * @param task - task added to the list
+     */
+    private void attach(Task task) {
+        modCount++;
+        if(task == null) {
+            nullCount++;
+            return;
+        }
+        task.setObserver(this);
+        if(task.isDone())
+            doneCount++;
+        indexName(task);
+        dueDateIndex.add(task);
+    }
+
+    /**
+     * Method to stop tracking a task that was removed from the list
+     * @param task - task removed from the list
+     */
+    private void detach(Task task) {
+        modCount++;
+        if(task == null) {
+            nullCount--;
+            return;
+        }
+        if(task.getObserver() == this)
+            task.setObserver(null);
+        if(task.isDone())
+            doneCount--;
+        unindexName(task, task.getName());
+        dueDateIndex.remove(task);
+    }
+
+    /**
+     * Method to add a task to the name index
+     * @param task - task to be indexed
+     */
+    private void indexName(Task task) {
+        if(task == null || task.getName() == null)
+            return;
+        nameIndex.computeIfAbsent(Task.nameKey(task.getName()), key -> {
+            if(searchIndex != null)
+                searchIndex.add(key);
+            return new ArrayList<>();
+        }).addItem(task);
+    }
+
+    /**
+     * Method to remove a task from the name index
+     * @param task - task to be removed from the index
+     * @param name - name the task is indexed under
+     */
+    private void unindexName(Task task, String name) {
+        if(name == null)
+            return;
+        String key = Task.nameKey(name);
+        ListAdt<Task> sameName = nameIndex.get(key);
+        if(sameName == null)
+            return;
+        // tasks with the same name are equal to each other, so match on identity
+        for (int i = 0; i < sameName.size(); i++) {
+            if(sameName.getItem(i) == task) {
+                sameName.removeItem(i);
+                break;
+            }
+        }
+        if(sameName.isEmpty()) {
+            nameIndex.remove(key);
+            if(searchIndex != null)
+                searchIndex.remove(key);
+        }
+    }
+
+    /**
+     * Read only view of the tasks with a given status. The view remembers the position of the
+     * last item returned, so reading the view in order costs O(1) per item on average
+     */
+    private class StatusView implements ListAdt<Task> {
+
+        /**
+         * Status of the tasks in this view
+         */
+        private final boolean done;
+
+        /**
+         * Index in the view of the last item returned
+         */
+        private int cursorIndex = -1;
+
+        /**
+         * Index in the task list of the last item returned
+         */
+        private int cursorPosition = -1;
+
+        /**
+         * Mod count of the task list when the cursor was last moved
+         */
+        private int cursorModCount = -1;
+
+        private StatusView(boolean done) {
+            this.done = done;
+        }
+
+        @Override
+        public void addItem(Task item) {
+            throw new UnsupportedOperationException("Status view is read only");
+        }
+
+        @Override
+        public void insertItem(int index, Task item) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Status view is read only");
+        }
+
+        @Override
+        public Task removeItem(int index) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Status view is read only");
+        }
+
+        @Override
+        public Task getItem(int index) throws IndexOutOfBoundsException {
+            if(index < 0 || index >= size())
+                throw new IndexOutOfBoundsException();
+            if(cursorModCount != modCount || index < cursorIndex) {
+                cursorIndex = -1;
+                cursorPosition = -1;
+                cursorModCount = modCount;
+            }
+            while (cursorIndex < index) {
+                cursorPosition++;
+                Task task = tasks.getItem(cursorPosition);
+                if(task != null && task.isDone() == done)
+                    cursorIndex++;
+            }
+            lastReadIndex = cursorPosition;
+            return tasks.getItem(cursorPosition);
+        }
+
+        @Override
+        public Task setItem(int index, Task item) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Status view is read only");
+        }
+
+        @Override
+        public int size() {
+            return done ? completedCount() : incompleteCount();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<Task> spliterator() {
+            return tasks.stream().filter(task -> task != null && task.isDone() == done).spliterator();
+        }
+
+        @Override
+        public boolean contains(Task item) {
+            if(item == null || item.getName() == null)
+                return false;
+            ListAdt<Task> sameName = nameIndex.get(Task.nameKey(item.getName()));
+            if(sameName == null)
+                return false;
+            for (int i = 0; i < sameName.size(); i++) {
+                if(sameName.getItem(i).isDone() == done)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
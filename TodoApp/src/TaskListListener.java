@@ -0,0 +1,66 @@
+import java.time.LocalDate;
+
+/**
+ * Interface for objects that need to be told about every change made to a task list
+ * Changes of a task in the list are reported through taskChanged, listeners that need to know
+ * what changed can override the more specific methods, which call taskChanged by default
+ */
+public interface TaskListListener {
+    /**
+     * Method called after a task is added or inserted in the list
+     * @param index - index of the new task
+     * @param task - task that was added
+     */
+    void itemInserted(int index, Task task);
+
+    /**
+     * Method called after a task is removed from the list
+     * @param index - index the task was removed from
+     * @param task - task that was removed
+     */
+    void itemRemoved(int index, Task task);
+
+    /**
+     * Method called after a task in the list is replaced by another task
+     * @param index - index of the replaced task
+     * @param oldTask - task that was replaced
+     * @param task - task that replaced it
+     */
+    void itemSet(int index, Task oldTask, Task task);
+
+    /**
+     * Method called after a task in the list is renamed, marked done or not done or given a new due date
+     * @param index - index of the changed task
+     * @param task - task that was changed
+     */
+    void taskChanged(int index, Task task);
+
+    /**
+     * Method called after a task in the list is renamed
+     * @param index - index of the changed task
+     * @param task - task that was changed
+     * @param oldName - name of the task before the change
+     */
+    default void taskRenamed(int index, Task task, String oldName) {
+        taskChanged(index, task);
+    }
+
+    /**
+     * Method called after a task in the list is marked done or not done
+     * @param index - index of the changed task
+     * @param task - task that was changed
+     */
+    default void taskDoneChanged(int index, Task task) {
+        taskChanged(index, task);
+    }
+
+    /**
+     * Method called after a task in the list is given a new due date
+     * @param index - index of the changed task
+     * @param task - task that was changed
+     * @param oldDate - due date of the task before the change
+     */
+    default void taskDueDateChanged(int index, Task task, LocalDate oldDate) {
+        taskChanged(index, task);
+    }
+}
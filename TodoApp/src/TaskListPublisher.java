@@ -0,0 +1,272 @@
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publisher of the changes made to a task list
+ * Changes are collected into batches as the list reports them and each batch is published to
+ * the subscribers as one item, when it is full or shortly after its first change. Within a
+ * batch, repeated changes of the same kind to one task are coalesced into one change from the
+ * first old value to the last new value, and dropped if the task was changed back. Inserted,
+ * removed and replaced tasks are published with a copy of their fields at the time of the
+ * change, since the task itself may change again before the batch is read. Subscribers get
+ * the batches in order on their own threads and request them at their own pace, up to a
+ * buffer of batches each. Writers never wait for a subscriber: one whose buffer is full is
+ * told with onError and unsubscribed, so it can subscribe again and rebuild its state from the
+ * list. While nobody is subscribed, changes are not collected at all
+ */
+public class TaskListPublisher implements TaskListListener, Flow.Publisher<ListAdt<TaskChange>>, AutoCloseable {
+
+    /**
+     * Number of changes after which a batch is published
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Longest time a change waits in a batch before the batch is published
+     */
+    private static final long MAX_DELAY_MILLIS = 5;
+
+    /**
+     * List whose changes are published
+     */
+    private final TaskList taskList;
+
+    /**
+     * Publisher delivering the batches to the subscribers
+     */
+    private final SubmissionPublisher<ListAdt<TaskChange>> publisher = new SubmissionPublisher<>();
+
+    /**
+     * Thread publishing the batches that are not full in time
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Changes not yet published, coalesced changes leave null behind
+     */
+    private ListAdt<TaskChange> batch = new ArrayList<>(BATCH_SIZE);
+    private int coalesced;
+
+    /**
+     * Position in the batch of the last change of each field of a task, since the last change
+     * that moved tasks in the list. Changes are only coalesced within these positions, since
+     * the index of a change is not valid across a move
+     */
+    private final Map<Task, int[]> lastChanges = new IdentityHashMap<>();
+
+    /**
+     * Pending publication of the batch, null if the batch is empty
+     */
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Subscriber that is told when it falls too far behind
+     */
+    private static class GuardedSubscriber implements Flow.Subscriber<ListAdt<TaskChange>> {
+        private final Flow.Subscriber<? super ListAdt<TaskChange>> subscriber;
+        private volatile Flow.Subscription subscription;
+        private boolean failed;
+
+        private GuardedSubscriber(Flow.Subscriber<? super ListAdt<TaskChange>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public synchronized void onNext(ListAdt<TaskChange> changes) {
+            if(!failed)
+                subscriber.onNext(changes);
+        }
+
+        @Override
+        public synchronized void onError(Throwable throwable) {
+            if(!failed)
+                subscriber.onError(throwable);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if(!failed)
+                subscriber.onComplete();
+        }
+
+        /**
+         * Method to unsubscribe the subscriber after a batch could not be given to it. The error
+         * is signalled on the executor, so the writer never waits for the subscriber, and the
+         * signals stay serial since they are all made holding this subscriber
+         * @param executor - executor the error is signalled on
+         */
+        private void fellBehind(Executor executor) {
+            subscription.cancel();
+            executor.execute(this::fail);
+        }
+
+        private synchronized void fail() {
+            if(failed)
+                return;
+            failed = true;
+            subscriber.onError(new IllegalStateException("Subscriber fell behind the changes of the task list"));
+        }
+    }
+
+    /**
+     * Constructor to create a publisher of the changes of the given list
+     * @param taskList - list whose changes are published
+     */
+    public TaskListPublisher(TaskList taskList) {
+        this.taskList = taskList;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "task-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+        taskList.addListener(this);
+    }
+
+    /**
+     * Method to subscribe to the batches of changes made after this call
+     * @param subscriber - subscriber of the batches
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ListAdt<TaskChange>> subscriber) {
+        publisher.subscribe(new GuardedSubscriber(subscriber));
+    }
+
+    /**
+     * Method to publish the changes collected so far without waiting for the batch to fill
+     */
+    public synchronized void flush() {
+        if(scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        lastChanges.clear();
+        if(batch.isEmpty())
+            return;
+        ListAdt<TaskChange> changes = batch;
+        if(coalesced > 0) {
+            changes = new ArrayList<>(Math.max(1, batch.size() - coalesced));
+            for (TaskChange change : batch) {
+                if(change != null)
+                    changes.addItem(change);
+            }
+        }
+        batch = new ArrayList<>(BATCH_SIZE);
+        coalesced = 0;
+        // published holding the monitor, so batches are never published out of order
+        if(!changes.isEmpty())
+            publisher.offer(changes, (subscriber, item) -> {
+                ((GuardedSubscriber) subscriber).fellBehind(publisher.getExecutor());
+                return false;
+            });
+    }
+
+    /**
+     * Method to publish the remaining changes, stop following the list and complete the subscribers
+     */
+    @Override
+    public void close() {
+        taskList.removeListener(this);
+        flush();
+        publisher.close();
+        timer.shutdownNow();
+    }
+
+    @Override
+    public synchronized void itemInserted(int index, Task task) {
+        if(publisher.hasSubscribers())
+            addStructural(new TaskChange(TaskChange.Kind.INSERTED, index, task, null, copyOf(task)));
+    }
+
+    @Override
+    public synchronized void itemRemoved(int index, Task task) {
+        if(publisher.hasSubscribers())
+            addStructural(new TaskChange(TaskChange.Kind.REMOVED, index, task, copyOf(task), null));
+    }
+
+    @Override
+    public synchronized void itemSet(int index, Task oldTask, Task task) {
+        if(publisher.hasSubscribers())
+            addStructural(new TaskChange(TaskChange.Kind.SET, index, task, copyOf(oldTask), copyOf(task)));
+    }
+
+    @Override
+    public void taskChanged(int index, Task task) {
+        // every change of a task is reported through the methods below
+    }
+
+    @Override
+    public synchronized void taskRenamed(int index, Task task, String oldName) {
+        if(publisher.hasSubscribers())
+            addFieldChange(TaskChange.Kind.RENAMED, 0, index, task, oldName, task.getName());
+    }
+
+    @Override
+    public synchronized void taskDoneChanged(int index, Task task) {
+        if(publisher.hasSubscribers())
+            addFieldChange(TaskChange.Kind.DONE_CHANGED, 1, index, task, !task.isDone(), task.isDone());
+    }
+
+    @Override
+    public synchronized void taskDueDateChanged(int index, Task task, LocalDate oldDate) {
+        if(publisher.hasSubscribers())
+            addFieldChange(TaskChange.Kind.DUE_DATE_CHANGED, 2, index, task, oldDate, task.getDueDate());
+    }
+
+    private static Task copyOf(Task task) {
+        return task == null ? null : new Task(task.getName(), task.getDueDate(), task.isDone());
+    }
+
+    private void addStructural(TaskChange change) {
+        lastChanges.clear();
+        add(change);
+    }
+
+    /**
+     * Method to add the change of one field of a task, coalescing it with the last change of
+     * the same field of the task in the batch
+     * @param field - position of the field in the arrays of lastChanges
+     */
+    private void addFieldChange(TaskChange.Kind kind, int field, int index, Task task, Object oldValue, Object newValue) {
+        int[] positions = lastChanges.get(task);
+        if(positions == null) {
+            positions = new int[] {-1, -1, -1};
+            lastChanges.put(task, positions);
+        } else if(positions[field] >= 0) {
+            oldValue = batch.getItem(positions[field]).getOldValue();
+            batch.setItem(positions[field], null);
+            coalesced++;
+            positions[field] = -1;
+            // the field was changed back, there is nothing left to publish
+            if(Objects.equals(oldValue, newValue))
+                return;
+        }
+        positions[field] = batch.size();
+        add(new TaskChange(kind, index, task, oldValue, newValue));
+    }
+
+    private void add(TaskChange change) {
+        batch.addItem(change);
+        if(batch.size() >= BATCH_SIZE) {
+            flush();
+        } else if(scheduledFlush == null) {
+            scheduledFlush = timer.schedule(this::flush, MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
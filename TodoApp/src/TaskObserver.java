@@ -0,0 +1,26 @@
+import java.time.LocalDate;
+
+/**
+ * Interface for objects that need to be told when a task they hold is changed
+ */
+public interface TaskObserver {
+    /**
+     * Method called after the name of a task is changed
+     * @param task - task that was changed
+     * @param oldName - name of the task before the change
+     */
+    void nameChanged(Task task, String oldName);
+
+    /**
+     * Method called after a task is marked done or not done
+     * @param task - task that was changed
+     */
+    void doneChanged(Task task);
+
+    /**
+     * Method called after the due date of a task is changed
+     * @param task - task that was changed
+     * @param oldDate - due date of the task before the change
+     */
+    void dueDateChanged(Task task, LocalDate oldDate);
+}
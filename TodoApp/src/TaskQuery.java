@@ -0,0 +1,447 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Query over the tasks of a task list
+ * A query combines conditions on the status, the due date and the name of the tasks with an
+ * order, an offset and a limit. When it is run, a planner estimates how many tasks each way of
+ * reading the list would visit: the whole list, the tasks of one status, the due date index or
+ * the name index, and reads only the smallest one, testing the other conditions on the tasks
+ * it visits. When the tasks come in the requested order, reading stops as soon as the limit is
+ * reached, otherwise only the best offset + limit tasks are kept while reading. The result is a
+ * cursor that reads the tasks as they are asked for, it fails if the list changes meanwhile
+ *
+ * Example: taskList.query().incomplete().dueBetween(today, today.plusDays(7)).nameContains("report")
+ *              .orderBy(TaskQuery.Order.DUE_DATE).limit(50).run()
+ */
+public class TaskQuery {
+
+    /**
+     * Orders of the results
+     */
+    public enum Order {
+        /** Any order, the order the tasks are read in */
+        ANY,
+        /** Order of the tasks in the list */
+        LIST,
+        /** Order of due date, tasks without one last */
+        DUE_DATE,
+        /** Order of name, ignoring case */
+        NAME
+    }
+
+    /**
+     * Ways of reading the list
+     */
+    private enum Path {
+        SCAN("list scan"),
+        STATUS("status view"),
+        DUE_DATE("due date index"),
+        NAME("name index");
+
+        private final String description;
+
+        Path(String description) {
+            this.description = description;
+        }
+    }
+
+    private static final Comparator<Task> BY_DUE_DATE = Comparator.comparing(Task::getDueDate,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+    private static final Comparator<Task> BY_NAME = Comparator.comparing(Task::getName,
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    /**
+     * List the query reads
+     */
+    private final TaskList taskList;
+
+    // Conditions of the query, null when not used
+    private Boolean done;
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private boolean dueRange;
+    private String nameFragment;
+    private Predicate<? super Task> filter;
+
+    private Order order = Order.ANY;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    // Plan chosen by the last call of plan
+    private Path path;
+    private int estimate;
+
+    /**
+     * Constructor to create a query matching every task of the list, queries are started with
+     * TaskList.query
+     * @param taskList - list the query reads
+     */
+    TaskQuery(TaskList taskList) {
+        this.taskList = taskList;
+    }
+
+    /**
+     * Method to only match the completed tasks
+     * @return this query
+     */
+    public TaskQuery completed() {
+        done = true;
+        return this;
+    }
+
+    /**
+     * Method to only match the incomplete tasks
+     * @return this query
+     */
+    public TaskQuery incomplete() {
+        done = false;
+        return this;
+    }
+
+    /**
+     * Method to only match the tasks due in a window of days, tasks without a due date never match
+     * @param from - first due date, inclusive, or null for no lower bound
+     * @param to - last due date, inclusive, or null for no upper bound
+     * @return this query
+     */
+    public TaskQuery dueBetween(LocalDate from, LocalDate to) {
+        dueFrom = from;
+        dueTo = to;
+        dueRange = true;
+        return this;
+    }
+
+    /**
+     * Method to only match the tasks whose name contains the fragment, ignoring case
+     * @param fragment - part of the name
+     * @return this query
+     */
+    public TaskQuery nameContains(String fragment) {
+        nameFragment = fragment;
+        return this;
+    }
+
+    /**
+     * Method to only match the tasks accepted by the filter as well, it is tested last
+     * @param filter - returns true for the tasks to be matched
+     * @return this query
+     */
+    public TaskQuery where(Predicate<? super Task> filter) {
+        Predicate<? super Task> previous = this.filter;
+        this.filter = previous == null ? filter : task -> previous.test(task) && filter.test(task);
+        return this;
+    }
+
+    /**
+     * Method to set the order of the results
+     * @param order - order of the results
+     * @return this query
+     */
+    public TaskQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Method to skip the first matching tasks
+     * @param offset - number of matching tasks to skip
+     * @return this query
+     */
+    public TaskQuery offset(int offset) {
+        if(offset < 0)
+            throw new IllegalArgumentException("Offset must not be negative");
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Method to limit the number of results
+     * @param limit - largest number of results
+     * @return this query
+     */
+    public TaskQuery limit(int limit) {
+        if(limit < 0)
+            throw new IllegalArgumentException("Limit must not be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Method to run the query
+     * @return cursor over the results, reading the list as the results are asked for
+     */
+    public ListAdt<Task> run() {
+        plan();
+        Iterator<Task> source;
+        switch (path) {
+            case STATUS: source = (done ? taskList.completedTasks() : taskList.incompleteTasks()).iterator(); break;
+            case DUE_DATE: source = taskList.dueIterator(dueFrom, dueTo, done != Boolean.FALSE); break;
+            case NAME: source = taskList.nameCandidates(nameFragment); break;
+            default: source = taskList.iterator();
+        }
+        if(isPushedDown())
+            return new Cursor(source, this::matches, offset, limit);
+        return new Cursor(sorted(source), task -> true, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to describe how the query would be run
+     * @return plan of the query
+     */
+    public String explain() {
+        plan();
+        StringBuilder plan = new StringBuilder(path.description);
+        plan.append(" (~").append(estimate).append(" tasks)");
+        if(done != null && path != Path.STATUS)
+            plan.append(", filter ").append(done ? "completed" : "incomplete");
+        if(dueRange && path != Path.DUE_DATE)
+            plan.append(", filter due ").append(dueFrom == null ? "" : dueFrom).append("..").append(dueTo == null ? "" : dueTo);
+        if(nameFragment != null)
+            plan.append(", filter name contains '").append(nameFragment).append('\'');
+        if(filter != null)
+            plan.append(", filter custom");
+        if(order != Order.ANY)
+            plan.append(isPushedDown() ? ", in " : ", sort by ").append(order.name().toLowerCase().replace('_', ' ')).append(" order");
+        if(limit < Integer.MAX_VALUE)
+            plan.append(isPushedDown() ? ", stop after " : ", keep best ").append((long) offset + limit);
+        return plan.toString();
+    }
+
+    /**
+     * Method to choose the way of reading the list that visits the fewest tasks. A way that
+     * gives the requested order counts half when a limit is set, since it can stop early
+     */
+    private void plan() {
+        path = Path.SCAN;
+        estimate = taskList.size();
+        if(done != null)
+            consider(Path.STATUS, done ? taskList.completedCount() : taskList.incompleteCount());
+        // the tasks of the indexes are not in list order
+        if(order == Order.LIST)
+            return;
+        if(dueRange)
+            consider(Path.DUE_DATE, taskList.countDue(dueFrom, dueTo, done != Boolean.FALSE, estimate));
+        if(nameFragment != null) {
+            int candidates = taskList.countNameCandidates(nameFragment, estimate);
+            if(candidates >= 0)
+                consider(Path.NAME, candidates);
+        }
+    }
+
+    private boolean consider(Path candidate, int count) {
+        long cost = count;
+        long best = estimate;
+        if(limit < Integer.MAX_VALUE) {
+            if(isOrdered(candidate))
+                cost /= 2;
+            if(isOrdered(path))
+                best /= 2;
+        }
+        if(cost >= best)
+            return false;
+        path = candidate;
+        estimate = count;
+        return true;
+    }
+
+    /**
+     * Method to check if reading the given way gives the tasks in the requested order
+     */
+    private boolean isOrdered(Path way) {
+        switch (order) {
+            case ANY: return true;
+            case LIST: return way == Path.SCAN || way == Path.STATUS;
+            case DUE_DATE: return way == Path.DUE_DATE;
+            default: return false;
+        }
+    }
+
+    private boolean isPushedDown() {
+        return isOrdered(path);
+    }
+
+    /**
+     * Method to check if a task meets all conditions of the query
+     */
+    private boolean matches(Task task) {
+        if(done != null && task.isDone() != done)
+            return false;
+        if(dueRange) {
+            LocalDate dueDate = task.getDueDate();
+            if(dueDate == null || (dueFrom != null && dueDate.isBefore(dueFrom)) || (dueTo != null && dueDate.isAfter(dueTo)))
+                return false;
+        }
+        if(nameFragment != null && !containsIgnoreCase(task.getName(), nameFragment))
+            return false;
+        return filter == null || filter.test(task);
+    }
+
+    /**
+     * Method to check if the name contains the fragment ignoring case, without copying the name
+     */
+    private static boolean containsIgnoreCase(String name, String fragment) {
+        if(name == null)
+            return false;
+        for (int i = 0; i + fragment.length() <= name.length(); i++) {
+            if(name.regionMatches(true, i, fragment, 0, fragment.length()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method to read the matching tasks and put the requested page in order, keeping only the
+     * best offset + limit tasks while reading when a limit is set
+     */
+    private Iterator<Task> sorted(Iterator<Task> source) {
+        Comparator<Task> comparator = order == Order.NAME ? BY_NAME : BY_DUE_DATE;
+        long kept = (long) offset + limit;
+        Task[] ordered;
+        if(kept < Integer.MAX_VALUE) {
+            // the worst kept task is at the head, so it is the one replaced
+            PriorityQueue<Task> best = new PriorityQueue<>(comparator.reversed());
+            while (source.hasNext()) {
+                Task task = source.next();
+                if(!matches(task))
+                    continue;
+                best.add(task);
+                if(best.size() > kept)
+                    best.poll();
+            }
+            ordered = best.toArray(new Task[0]);
+        } else {
+            ListAdt<Task> all = new ArrayList<>();
+            while (source.hasNext()) {
+                Task task = source.next();
+                if(matches(task))
+                    all.addItem(task);
+            }
+            ordered = new Task[all.size()];
+            for (int i = 0; i < ordered.length; i++) {
+                ordered[i] = all.getItem(i);
+            }
+        }
+        Arrays.sort(ordered, comparator);
+        if(offset >= ordered.length)
+            return Collections.emptyIterator();
+        return Arrays.asList(ordered).subList(offset, (int) Math.min(ordered.length, kept)).iterator();
+    }
+
+    /**
+     * Read only list of the results, reading the source only as far as the results asked for
+     */
+    private class Cursor implements ListAdt<Task> {
+        private final Iterator<Task> source;
+        private final Predicate<Task> matches;
+        private final ListAdt<Task> results = new ArrayList<>();
+        private final int expectedModCount = taskList.modCount();
+        private int toSkip;
+        private int remaining;
+
+        private Cursor(Iterator<Task> source, Predicate<Task> matches, int offset, int limit) {
+            this.source = source;
+            this.matches = matches;
+            this.toSkip = offset;
+            this.remaining = limit;
+        }
+
+        /**
+         * Method to read the source until there are count results or it ends
+         */
+        private void fill(int count) {
+            while (results.size() < count && remaining > 0) {
+                if(taskList.modCount() != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if(!source.hasNext()) {
+                    remaining = 0;
+                    return;
+                }
+                Task task = source.next();
+                if(!matches.test(task))
+                    continue;
+                if(toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                results.addItem(task);
+                remaining--;
+            }
+        }
+
+        @Override
+        public Task getItem(int index) throws IndexOutOfBoundsException {
+            if(index >= 0)
+                fill(index + 1);
+            return results.getItem(index);
+        }
+
+        @Override
+        public int size() {
+            fill(Integer.MAX_VALUE);
+            return results.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            fill(1);
+            return results.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Task task) {
+            for (Task result : this) {
+                if(result.equals(task))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return new Iterator<Task>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    fill(next + 1);
+                    return next < results.size();
+                }
+
+                @Override
+                public Task next() {
+                    if(!hasNext())
+                        throw new NoSuchElementException();
+                    return results.getItem(next++);
+                }
+            };
+        }
+
+        @Override
+        public void addItem(Task item) {
+            throw new UnsupportedOperationException("Query results are read only");
+        }
+
+        @Override
+        public void insertItem(int index, Task item) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Query results are read only");
+        }
+
+        @Override
+        public Task removeItem(int index) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Query results are read only");
+        }
+
+        @Override
+        public Task setItem(int index, Task item) throws IndexOutOfBoundsException {
+            throw new UnsupportedOperationException("Query results are read only");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * Renderer of task tables
+ * Rows are built in one reused buffer with fixed column widths and written through a single
+ * buffered writer, so printing a long list costs a few large writes instead of one formatted
+ * write per row. Only the rows of the requested range are read from the list
+ */
+public class TaskRenderer {
+
+    // Widths of the table columns
+    private static final int INDEX_WIDTH = 8;
+    private static final int NAME_WIDTH = 35;
+    private static final int DATE_WIDTH = 15;
+    private static final int DONE_WIDTH = 15;
+
+    /**
+     * Line drawn above and below the table header
+     */
+    private static final String RULE = "-------------------------------------------------------------------";
+
+    /**
+     * Size of the row buffer after which it is written out
+     */
+    private static final int FLUSH_SIZE = 1 << 13;
+
+    /**
+     * Writer the tables are written to
+     */
+    private final Writer out;
+
+    /**
+     * Buffer reused for building rows
+     */
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 256);
+
+    /**
+     * Last due date rendered and its text, tasks often share due dates
+     */
+    private LocalDate lastDate;
+    private String lastDateText;
+
+    /**
+     * Header of the table, built once
+     */
+    private final String header;
+
+    /**
+     * Constructor to create a renderer writing to the given stream
+     * @param out - stream the tables are written to
+     */
+    public TaskRenderer(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out), 1 << 16));
+    }
+
+    /**
+     * Constructor to create a renderer writing to the given writer
+     * @param out - writer the tables are written to
+     */
+    public TaskRenderer(Writer out) {
+        this.out = out;
+        StringBuilder headerBuilder = new StringBuilder();
+        headerBuilder.append(RULE).append('\n');
+        appendCell(headerBuilder, "Index", INDEX_WIDTH);
+        appendCell(headerBuilder, "Name", NAME_WIDTH);
+        appendCell(headerBuilder, "Due Date", DATE_WIDTH);
+        appendCell(headerBuilder, "Done", DONE_WIDTH);
+        headerBuilder.setLength(headerBuilder.length() - 1);
+        headerBuilder.append('\n').append(RULE).append('\n');
+        this.header = headerBuilder.toString();
+    }
+
+    /**
+     * Method to render a range of tasks as a table and flush the output
+     * @param tasks - list of tasks
+     * @param from - index of the first task to render
+     * @param to - index after the last task to render
+     * @throws UncheckedIOException - if the output cannot be written
+     */
+    public void render(ListAdt<Task> tasks, int from, int to) throws UncheckedIOException {
+        try {
+            buffer.setLength(0);
+            buffer.append(header);
+            for (int i = from; i < to; i++) {
+                appendRow(i + 1, tasks.getItem(i));
+                if(buffer.length() >= FLUSH_SIZE) {
+                    out.append(buffer);
+                    buffer.setLength(0);
+                }
+            }
+            out.append(buffer);
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Method to add one table row to the buffer
+     * @param index - index shown for the task
+     * @param task - task of the row
+     */
+    private void appendRow(int index, Task task) {
+        int start = buffer.length();
+        buffer.append(index);
+        pad(start, INDEX_WIDTH);
+        start = buffer.length();
+        buffer.append(task.getName());
+        pad(start, NAME_WIDTH);
+        start = buffer.length();
+        buffer.append(dateText(task.getDueDate()));
+        pad(start, DATE_WIDTH);
+        buffer.append(task.isDone() ? "Yes" : "No ");
+        // the last column is padded like the others
+        for (int i = 3; i < DONE_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        buffer.append('\n');
+    }
+
+    /**
+     * Method to pad the cell starting at the given position to the column width and add the column gap
+     */
+    private void pad(int start, int width) {
+        for (int i = buffer.length() - start; i < width; i++) {
+            buffer.append(' ');
+        }
+        buffer.append(' ');
+    }
+
+    private String dateText(LocalDate date) {
+        if(date == null)
+            return "null";
+        if(!date.equals(lastDate)) {
+            lastDate = date;
+            lastDateText = date.toString();
+        }
+        return lastDateText;
+    }
+
+    private static void appendCell(StringBuilder builder, String text, int width) {
+        builder.append(text);
+        for (int i = text.length(); i < width; i++) {
+            builder.append(' ');
+        }
+        builder.append(' ');
+    }
+}
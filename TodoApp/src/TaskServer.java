@@ -0,0 +1,624 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HTTP server giving many clients JSON access to one task list
+ * Each request runs on its own virtual thread when the JVM has them, and on a pooled thread
+ * otherwise. Requests that only read the list share a read lock, requests that change it take
+ * the write lock and commit the change to the journal before answering. Large listings are
+ * streamed in chunks, and the lock is released between chunks so writers are never held up by
+ * a slow client
+ *
+ * Endpoints, task indexes are 1 based as in the console:
+ *   GET    /tasks?status=all|completed|incomplete&offset=n&limit=n   list tasks
+ *   GET    /tasks?from=yyyy-mm-dd&to=yyyy-mm-dd&name=fragment&sort=list|due|name&...
+ *                                                                    query tasks
+ *   POST   /tasks            {"name": "...", "dueDate": "yyyy-mm-dd"}   add a task
+ *   GET    /tasks/{index}                                             get a task
+ *   PUT    /tasks/{index}    {"name": ..., "dueDate": ..., "done": ...} change a task
+ *   DELETE /tasks/{index}                                             remove a task
+ *   GET    /tasks/search?q=fragment&limit=n                           search tasks by name
+ *   GET    /stats                                                     task counts
+ *
+ * When serving the lists of many tenants the same endpoints are found under /tenants/{tenant},
+ * and GET /tenants answers the metrics of the tenant registry. When serving the list of a
+ * replication follower only the GET endpoints are served, and /stats also answers how far the
+ * follower is behind its primary
+ */
+public class TaskServer {
+
+    /**
+     * Largest number of tasks read from the list while holding the read lock once
+     */
+    private static final int CHUNK_SCAN = 4096;
+
+    /**
+     * Number of search results returned when no limit is given
+     */
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    /**
+     * List served to the clients, null when serving the lists of many tenants
+     */
+    private final TaskList taskList;
+
+    /**
+     * Journal the changes are committed to, null if the tasks are only kept in memory
+     */
+    private final TaskJournal journal;
+
+    /**
+     * Registry of the tenants' lists, null when serving a single list
+     */
+    private final TenantRegistry registry;
+
+    /**
+     * Follower whose list is served read only, null when serving a list that can be changed
+     */
+    private final ReplicationFollower follower;
+
+    /**
+     * Lock shared by reading requests and held alone by changing requests of a single list
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Error answered to the client with the given HTTP status
+     */
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Constructor to create a server for the given list
+     * @param taskList - list served to the clients
+     * @param journal - journal the changes are committed to, null if none
+     */
+    public TaskServer(TaskList taskList, TaskJournal journal) {
+        this.taskList = taskList;
+        this.journal = journal;
+        this.registry = null;
+        this.follower = null;
+    }
+
+    /**
+     * Constructor to create a server for the lists of many tenants, served under /tenants/{tenant}
+     * @param registry - registry of the tenants' lists
+     */
+    public TaskServer(TenantRegistry registry) {
+        this.taskList = null;
+        this.journal = null;
+        this.registry = registry;
+        this.follower = null;
+    }
+
+    /**
+     * Constructor to create a read only server for the list of a replication follower
+     * @param follower - follower whose list is served, changes are refused
+     */
+    public TaskServer(ReplicationFollower follower) {
+        this.taskList = null;
+        this.journal = null;
+        this.registry = null;
+        this.follower = follower;
+    }
+
+    /**
+     * Method to start serving on the given address
+     * @param address - address to listen on, port 0 picks a free port
+     * @return port the server listens on
+     * @throws IOException - if the server cannot be started
+     */
+    public int start(InetSocketAddress address) throws IOException {
+        // without this small responses wait for delayed acknowledgements of the headers
+        if(System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(address, 1024);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        if(registry != null) {
+            server.createContext("/tenants", this::handleTenants);
+        } else {
+            server.createContext("/tasks", this::handleTasks);
+            server.createContext("/stats", this::handleStats);
+        }
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Method to stop the server, waiting at most the given time for running requests
+     * @param delaySeconds - seconds to wait for running requests
+     */
+    public void stop(int delaySeconds) {
+        if(server == null)
+            return;
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    /**
+     * Method to create the executor running the requests, one virtual thread per request when
+     * the JVM supports them
+     * @return executor for the requests
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Method to route the requests under /tasks
+     * @param exchange - request and response
+     * @throws IOException - if the response cannot be written
+     */
+    private void handleTasks(HttpExchange exchange) throws IOException {
+        try {
+            routeTasks(exchange, null, exchange.getRequestURI().getPath());
+        } catch (RequestException ex) {
+            sendError(exchange, ex.status, ex.getMessage());
+        } catch (IllegalArgumentException | DateTimeException | NullPointerException ex) {
+            sendError(exchange, 400, ex.getMessage());
+        } catch (IndexOutOfBoundsException ex) {
+            sendError(exchange, 404, "No task at this index");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method to route the requests under /tenants/{tenant}, and the registry metrics at /tenants
+     * @param exchange - request and response
+     * @throws IOException - if the response cannot be written
+     */
+    private void handleTenants(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if(path.equals("/tenants") || path.equals("/tenants/")) {
+                StringBuilder body = new StringBuilder("{");
+                for (Map.Entry<String, Long> metric : registry.metrics().entrySet()) {
+                    if(body.length() > 1)
+                        body.append(',');
+                    Json.appendString(body, metric.getKey());
+                    body.append(':').append(metric.getValue());
+                }
+                send(exchange, 200, body.append('}'));
+                return;
+            }
+            int tenantEnd = path.indexOf('/', "/tenants/".length());
+            if(!path.startsWith("/tenants/") || tenantEnd < 0)
+                throw new RequestException(404, "Not found");
+            String tenant = path.substring("/tenants/".length(), tenantEnd);
+            String rest = path.substring(tenantEnd);
+            if(rest.equals("/stats"))
+                sendStats(exchange, tenant);
+            else
+                routeTasks(exchange, tenant, rest);
+        } catch (RequestException ex) {
+            sendError(exchange, ex.status, ex.getMessage());
+        } catch (IllegalArgumentException | DateTimeException | NullPointerException ex) {
+            sendError(exchange, 400, ex.getMessage());
+        } catch (IndexOutOfBoundsException ex) {
+            sendError(exchange, 404, "No task at this index");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method to route a request for the tasks of a tenant
+     * @param exchange - request and response
+     * @param tenant - name of the tenant, null when serving a single list
+     * @param path - path of the request starting at /tasks
+     * @throws IOException - if the response cannot be written
+     */
+    private void routeTasks(HttpExchange exchange, String tenant, String path) throws IOException {
+        String method = exchange.getRequestMethod();
+        Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+        if(!path.equals("/tasks") && !path.startsWith("/tasks/"))
+            throw new RequestException(404, "Not found");
+        String rest = path.length() > "/tasks".length() ? path.substring("/tasks/".length()) : "";
+        if(follower != null && !"GET".equals(method))
+            throw new RequestException(403, "This server is a read only follower, send changes to the primary");
+        if(rest.isEmpty()) {
+            if("GET".equals(method))
+                listTasks(exchange, tenant, params);
+            else if("POST".equals(method))
+                addTask(exchange, tenant);
+            else
+                throw new RequestException(405, "Method not allowed");
+        } else if("search".equals(rest)) {
+            if(!"GET".equals(method))
+                throw new RequestException(405, "Method not allowed");
+            searchTasks(exchange, tenant, params);
+        } else {
+            int index = parseIndex(rest);
+            switch (method) {
+                case "GET": getTask(exchange, tenant, index); break;
+                case "PUT": updateTask(exchange, tenant, index); break;
+                case "DELETE": removeTask(exchange, tenant, index); break;
+                default: throw new RequestException(405, "Method not allowed");
+            }
+        }
+    }
+
+    /**
+     * Method to answer the task counts
+     * @param exchange - request and response
+     * @throws IOException - if the response cannot be written
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            sendStats(exchange, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendStats(HttpExchange exchange, String tenant) throws IOException {
+        StringBuilder body = new StringBuilder();
+        read(tenant, taskList -> body.append("{\"total\":").append(taskList.size())
+                .append(",\"completed\":").append(taskList.completedCount())
+                .append(",\"incomplete\":").append(taskList.incompleteCount()));
+        if(follower != null)
+            body.append(",\"appliedSequence\":").append(follower.getAppliedSequence())
+                    .append(",\"lagChanges\":").append(follower.getLagChanges())
+                    .append(",\"lagMillis\":").append(follower.getLagMillis());
+        body.append('}');
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Method to stream the tasks with the requested status. The list is read once per chunk,
+     * so every chunk is consistent but a listing taken while the list changes may skip or
+     * repeat tasks moved by the change
+     */
+    private void listTasks(HttpExchange exchange, String tenant, Map<String, String> params) throws IOException {
+        if(params.containsKey("from") || params.containsKey("to") || params.containsKey("name")
+                || params.containsKey("sort")) {
+            queryTasks(exchange, tenant, params);
+            return;
+        }
+        Boolean done = statusFilter(params.get("status"));
+        int offset = intParam(params, "offset", 0);
+        int limit = intParam(params, "limit", Integer.MAX_VALUE);
+        // make sure the tenant can be loaded before the answer is started
+        read(tenant, taskList -> { });
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        // length 0 makes the response chunked
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            StringBuilder chunk = new StringBuilder(1 << 16);
+            chunk.append('[');
+            Listing listing = new Listing();
+            while (listing.more) {
+                read(tenant, taskList -> {
+                    int end = Math.min(taskList.size(), listing.position + CHUNK_SCAN);
+                    for (; listing.position < end && listing.written < limit; listing.position++) {
+                        Task task = taskList.getItem(listing.position);
+                        if(done != null && task.isDone() != done)
+                            continue;
+                        if(listing.matched++ < offset)
+                            continue;
+                        if(listing.written++ > 0)
+                            chunk.append(',');
+                        Json.appendTask(chunk, listing.position + 1, task);
+                    }
+                    listing.more = listing.position < taskList.size() && listing.written < limit;
+                });
+                out.append(chunk);
+                chunk.setLength(0);
+            }
+            out.append(']');
+        }
+    }
+
+    /**
+     * Method to answer the tasks meeting the conditions of the request, read with the query
+     * planner under one read lock. Results are written without their index
+     */
+    private void queryTasks(HttpExchange exchange, String tenant, Map<String, String> params) throws IOException {
+        Boolean done = statusFilter(params.get("status"));
+        String from = params.get("from");
+        String to = params.get("to");
+        String fragment = params.get("name");
+        TaskQuery.Order order;
+        switch (params.getOrDefault("sort", "list")) {
+            case "list": order = TaskQuery.Order.LIST; break;
+            case "due": order = TaskQuery.Order.DUE_DATE; break;
+            case "name": order = TaskQuery.Order.NAME; break;
+            default: throw new IllegalArgumentException("sort must be list, due or name");
+        }
+        LocalDate fromDate = from == null ? null : LocalDate.parse(from);
+        LocalDate toDate = to == null ? null : LocalDate.parse(to);
+        int offset = intParam(params, "offset", 0);
+        int limit = intParam(params, "limit", Integer.MAX_VALUE);
+        StringBuilder response = new StringBuilder();
+        response.append('[');
+        read(tenant, taskList -> {
+            TaskQuery query = taskList.query().orderBy(order).offset(offset).limit(limit);
+            if(done != null) {
+                if(done)
+                    query.completed();
+                else
+                    query.incomplete();
+            }
+            if(fromDate != null || toDate != null)
+                query.dueBetween(fromDate, toDate);
+            if(fragment != null && !fragment.isBlank())
+                query.nameContains(fragment.trim());
+            int written = 0;
+            for (Task task : query.run()) {
+                if(written++ > 0)
+                    response.append(',');
+                Json.appendTask(response, 0, task);
+            }
+        });
+        response.append(']');
+        send(exchange, 200, response);
+    }
+
+    /**
+     * Position of a streamed listing between chunks
+     */
+    private static class Listing {
+        private int position;
+        private int matched;
+        private int written;
+        private boolean more = true;
+    }
+
+    private void addTask(HttpExchange exchange, String tenant) throws IOException {
+        Map<String, Object> body = Json.parseObject(readBody(exchange));
+        String name = stringValue(body, "name");
+        LocalDate dueDate = dateValue(body, "dueDate");
+        if(name == null || dueDate == null)
+            throw new IllegalArgumentException("Name and due date of the task are required");
+        TodoList.validateTask(name, dueDate);
+        StringBuilder response = new StringBuilder();
+        write(tenant, taskList -> {
+            Task task = TaskFactory.shared().create(name, dueDate, false);
+            taskList.addItem(task);
+            Json.appendTask(response, taskList.size(), task);
+        });
+        send(exchange, 201, response);
+    }
+
+    private void getTask(HttpExchange exchange, String tenant, int index) throws IOException {
+        StringBuilder response = new StringBuilder();
+        read(tenant, taskList -> Json.appendTask(response, index, taskList.getItem(index - 1)));
+        send(exchange, 200, response);
+    }
+
+    /**
+     * Method to change the fields given in the request body of the task at the index
+     */
+    private void updateTask(HttpExchange exchange, String tenant, int index) throws IOException {
+        Map<String, Object> body = Json.parseObject(readBody(exchange));
+        String name = body.containsKey("name") ? stringValue(body, "name") : null;
+        LocalDate dueDate = body.containsKey("dueDate") ? dateValue(body, "dueDate") : null;
+        Object done = body.get("done");
+        if(done != null && !(done instanceof Boolean))
+            throw new IllegalArgumentException("done must be true or false");
+        if(name != null && name.isBlank())
+            throw new NullPointerException("Name for the task is required field");
+        StringBuilder response = new StringBuilder();
+        write(tenant, taskList -> {
+            Task current = taskList.getItem(index - 1);
+            if(dueDate != null && !dueDate.equals(current.getDueDate()))
+                TodoList.validateTask(name != null ? name : current.getName(), dueDate);
+            Task task = taskList.updateItem(index - 1, changed -> {
+                if(name != null)
+                    changed.setName(name);
+                if(dueDate != null)
+                    changed.setDueDate(dueDate);
+                if(done != null)
+                    changed.setDone((Boolean) done);
+            });
+            Json.appendTask(response, index, task);
+        });
+        send(exchange, 200, response);
+    }
+
+    private void removeTask(HttpExchange exchange, String tenant, int index) throws IOException {
+        StringBuilder response = new StringBuilder();
+        write(tenant, taskList -> Json.appendTask(response, 0, taskList.removeItem(index - 1)));
+        send(exchange, 200, response);
+    }
+
+    /**
+     * Method to answer the tasks whose name contains the fragment, ranked as by the name search
+     * of the list. Results are written without their index
+     */
+    private void searchTasks(HttpExchange exchange, String tenant, Map<String, String> params) throws IOException {
+        String fragment = params.get("q");
+        if(fragment == null || fragment.isBlank())
+            throw new IllegalArgumentException("Search text q is required");
+        int limit = intParam(params, "limit", DEFAULT_SEARCH_LIMIT);
+        StringBuilder response = new StringBuilder();
+        response.append('[');
+        read(tenant, taskList -> {
+            ListAdt<Task> results = taskList.search(fragment.trim(), limit);
+            for (int i = 0; i < results.size(); i++) {
+                if(i > 0)
+                    response.append(',');
+                Json.appendTask(response, 0, results.getItem(i));
+            }
+        });
+        response.append(']');
+        send(exchange, 200, response);
+    }
+
+    /**
+     * Method to run an action that only reads the list of a tenant
+     * @param tenant - name of the tenant, null when serving a single list
+     * @param action - action reading the list
+     * @throws IOException - if the tenant cannot be loaded
+     */
+    private void read(String tenant, Consumer<TaskList> action) throws IOException {
+        if(registry != null) {
+            registry.execute(tenant, taskList -> {
+                action.accept(taskList);
+                return null;
+            });
+            return;
+        }
+        if(follower != null) {
+            follower.read(taskList -> {
+                action.accept(taskList);
+                return null;
+            });
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            action.accept(taskList);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to run an action that changes the list of a tenant and make the change durable
+     * before it is answered
+     * @param tenant - name of the tenant, null when serving a single list
+     * @param action - action changing the list
+     * @throws IOException - if the tenant cannot be loaded
+     */
+    private void write(String tenant, Consumer<TaskList> action) throws IOException {
+        if(registry != null) {
+            registry.execute(tenant, taskList -> {
+                action.accept(taskList);
+                return null;
+            });
+            return;
+        }
+        if(follower != null)
+            throw new RequestException(403, "This server is a read only follower, send changes to the primary");
+        lock.writeLock().lock();
+        try {
+            action.accept(taskList);
+            if(journal != null)
+                journal.commit();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Boolean statusFilter(String status) {
+        if(status == null || "all".equals(status))
+            return null;
+        if("completed".equals(status))
+            return Boolean.TRUE;
+        if("incomplete".equals(status))
+            return Boolean.FALSE;
+        throw new IllegalArgumentException("Unknown status " + status);
+    }
+
+    private static int parseIndex(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new RequestException(404, "Not found");
+        }
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if(value == null)
+            return defaultValue;
+        int number = Integer.parseInt(value);
+        if(number < 0)
+            throw new IllegalArgumentException(name + " must not be negative");
+        return number;
+    }
+
+    private static String stringValue(Map<String, Object> body, String key) {
+        Object value = body.get(key);
+        if(value != null && !(value instanceof String))
+            throw new IllegalArgumentException(key + " must be a string");
+        return (String) value;
+    }
+
+    private static LocalDate dateValue(Map<String, Object> body, String key) {
+        String value = stringValue(body, key);
+        return value == null ? null : LocalDate.parse(value);
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if(rawQuery == null || rawQuery.isEmpty())
+            return params;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder body = new StringBuilder("{\"error\":");
+        Json.appendString(body, message);
+        body.append('}');
+        send(exchange, status, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
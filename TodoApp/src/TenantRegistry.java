@@ -0,0 +1,281 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the task lists of many tenants in one JVM
+ * Every tenant has its own task list stored by its own journal in a sub directory of the data
+ * directory. Tenants are spread over a fixed number of lock stripes, so work on one tenant only
+ * waits for tenants of the same stripe. Only a bounded number of tenants and tasks are kept in
+ * memory: when either bound is passed the least recently used tenants are written to disk and
+ * dropped, and they are loaded again the next time they are used
+ */
+public class TenantRegistry implements Closeable {
+
+    /**
+     * Number of lock stripes, a power of two
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Allowed tenant names, they are used as directory names
+     */
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * Directory holding one sub directory per tenant
+     */
+    private final Path dataDir;
+
+    /**
+     * Supplier of the empty lists the tenants' tasks are loaded into
+     */
+    private final Supplier<ListAdt<Task>> listFactory;
+
+    /**
+     * Largest number of tenants kept in memory
+     */
+    private final int maxTenants;
+
+    /**
+     * Largest number of tasks kept in memory over all tenants, a tenant in use is never
+     * dropped so a single larger tenant can still be loaded
+     */
+    private final long maxTasks;
+
+    /**
+     * Locks of the stripes, a tenant is loaded, used and dropped holding the lock of its stripe
+     */
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * Tenants in memory from least to most recently used, guarded by its own monitor which is
+     * only held for map updates
+     */
+    private final LinkedHashMap<String, Tenant> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of tasks of the tenants in memory, guarded by the monitor of loaded
+     */
+    private long loadedTasks;
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    /**
+     * Task list of one tenant in memory
+     */
+    private static class Tenant {
+        private final TaskList taskList;
+        private final TaskJournal journal;
+
+        /**
+         * Number of tasks counted in loadedTasks for this tenant
+         */
+        private int size;
+
+        private Tenant(TaskList taskList, TaskJournal journal) {
+            this.taskList = taskList;
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Constructor to create a registry of the tenants stored in the given directory
+     * @param dataDir - directory holding one sub directory per tenant
+     * @param listFactory - supplier of empty lists for the tenants' tasks
+     * @param maxTenants - largest number of tenants kept in memory
+     * @param maxTasks - largest number of tasks kept in memory over all tenants
+     */
+    public TenantRegistry(Path dataDir, Supplier<ListAdt<Task>> listFactory, int maxTenants, long maxTasks) {
+        if(maxTenants < 1 || maxTasks < 1)
+            throw new IllegalArgumentException("Limits of the registry must be positive");
+        this.dataDir = dataDir;
+        this.listFactory = listFactory;
+        this.maxTenants = maxTenants;
+        this.maxTasks = maxTasks;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Method to run an action on the task list of a tenant and commit the changes it made.
+     * The tenant is loaded from disk if it is not in memory, and no other action runs on the
+     * tenant at the same time
+     * @param tenant - name of the tenant
+     * @param action - action run on the tenant's list, must not keep the list after returning
+     * @return result of the action
+     * @throws IOException - if the tenant cannot be loaded
+     * @throws IllegalArgumentException - if the tenant name is invalid
+     */
+    public <T> T execute(String tenant, Function<? super TaskList, T> action) throws IOException, IllegalArgumentException {
+        if(tenant == null || !TENANT_NAME.matcher(tenant).matches())
+            throw new IllegalArgumentException("Invalid tenant name " + tenant);
+        ReentrantLock stripe = stripeOf(tenant);
+        stripe.lock();
+        try {
+            Tenant current = acquire(tenant);
+            try {
+                return action.apply(current.taskList);
+            } finally {
+                current.journal.commit();
+                resize(current);
+            }
+        } finally {
+            stripe.unlock();
+            evictCold();
+        }
+    }
+
+    /**
+     * Method to find a tenant in memory or load it, called holding the lock of its stripe
+     */
+    private Tenant acquire(String tenant) throws IOException {
+        synchronized (loaded) {
+            Tenant current = loaded.get(tenant);
+            if(current != null) {
+                hits.incrementAndGet();
+                return current;
+            }
+        }
+        misses.incrementAndGet();
+        long start = System.nanoTime();
+        TaskList taskList = new TaskList(listFactory.get());
+        TaskJournal journal = TaskJournal.open(dataDir.resolve(tenant), taskList);
+        loadNanos.addAndGet(System.nanoTime() - start);
+        Tenant current = new Tenant(taskList, journal);
+        synchronized (loaded) {
+            loaded.put(tenant, current);
+        }
+        resize(current);
+        return current;
+    }
+
+    /**
+     * Method to update the number of tasks in memory after a tenant's list may have changed
+     */
+    private void resize(Tenant tenant) {
+        int size = tenant.taskList.size();
+        synchronized (loaded) {
+            loadedTasks += size - tenant.size;
+            tenant.size = size;
+        }
+    }
+
+    /**
+     * Method to drop the least recently used tenants until both memory bounds are met. Tenants
+     * whose stripe is busy are skipped, they are in use or will be dropped by the next call
+     */
+    private void evictCold() {
+        while (true) {
+            String victim = null;
+            synchronized (loaded) {
+                if(loaded.size() <= maxTenants && loadedTasks <= maxTasks)
+                    return;
+                Iterator<String> names = loaded.keySet().iterator();
+                while (names.hasNext() && victim == null) {
+                    String name = names.next();
+                    if(!stripeOf(name).isLocked() && names.hasNext())
+                        victim = name;
+                }
+            }
+            if(victim == null || !evict(victim))
+                return;
+        }
+    }
+
+    /**
+     * Method to write a tenant to disk and drop it from memory
+     * @param tenant - name of the tenant
+     * @return true if the tenant was dropped
+     */
+    private boolean evict(String tenant) {
+        ReentrantLock stripe = stripeOf(tenant);
+        if(!stripe.tryLock())
+            return false;
+        try {
+            Tenant current;
+            synchronized (loaded) {
+                current = loaded.remove(tenant);
+                if(current == null)
+                    return true;
+                loadedTasks -= current.size;
+            }
+            try {
+                current.journal.close();
+            } catch (IOException ex) {
+                // the journal was committed after every action, so only the snapshot is lost
+                // and the log is replayed at the next load
+            }
+            evictions.incrementAndGet();
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private ReentrantLock stripeOf(String tenant) {
+        int hash = tenant.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Method to get the registry metrics
+     * @return metrics by name
+     */
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("loadMillis", loadNanos.get() / 1_000_000);
+        synchronized (loaded) {
+            metrics.put("loadedTenants", (long) loaded.size());
+            metrics.put("loadedTasks", loadedTasks);
+        }
+        return metrics;
+    }
+
+    /**
+     * Method to write every tenant in memory to disk and drop it
+     * @throws IOException - if a tenant cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            synchronized (loaded) {
+                for (Tenant tenant : loaded.values()) {
+                    try {
+                        tenant.journal.close();
+                    } catch (IOException ex) {
+                        failure = ex;
+                    }
+                }
+                loaded.clear();
+                loadedTasks = 0;
+            }
+        } finally {
+            for (ReentrantLock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+        if(failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,287 @@
+import java.util.function.Predicate;
+
+/**
+ * Tiered Array Implementation of List
+ * Items are kept in blocks of equal size where every block but the last is full. Each block is
+ * a circular buffer, so an item can be moved from one block to the next in O(1). With block size
+ * close to the square root of the list size, getting an item costs O(1) and inserting or
+ * removing an item at any index costs O(sqrt n)
+ * @param <E>
+ */
+public class TieredArrayList<E> implements ListAdt<E> {
+
+    /**
+     * Blocks where list items are stored
+     */
+    private E[][] blocks;
+
+    /**
+     * Index of the first item of each block within the block
+     */
+    private int[] heads;
+
+    /**
+     * Number of blocks in use
+     */
+    private int blockCount;
+
+    /**
+     * Number of items a block can hold, always a power of two
+     */
+    private int blockSize;
+
+    /**
+     * size of the list that increases or decrease on addition or removal items
+     */
+    private int size;
+
+    /**
+     * Smallest block size used by the list
+     */
+    private static int MIN_BLOCK_SIZE = 16;
+
+    /**
+     * Default constructor of list to create an empty list
+     */
+    public TieredArrayList() {
+        init(MIN_BLOCK_SIZE);
+    }
+
+    /**
+     * Method to add item at the end of the list
+     * @param item - new item to be added
+     */
+    @Override
+    public void addItem(E item) {
+        if(size == blockCount * blockSize)
+            addBlock();
+        int last = blockCount - 1;
+        blocks[last][(heads[last] + size - last * blockSize) & (blockSize - 1)] = item;
+        size++;
+    }
+
+    /**
+     * Method to insert an item at given index, moving the item at that index and all later
+     * items one place up
+     * @param index - index where the item needs to be inserted
+     * @param item - new item to be inserted
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public void insertItem(int index, E item) throws IndexOutOfBoundsException {
+        if(index < 0 || index > size)
+            throw new IndexOutOfBoundsException();
+        if(index == size) {
+            addItem(item);
+            return;
+        }
+        int oldSize = size;
+        if(size == blockCount * blockSize)
+            addBlock();
+        int mask = blockSize - 1;
+        int block = index / blockSize;
+        int offset = index & mask;
+        int last = blockCount - 1;
+
+        // move the last item of every block after the target one block up, starting from the end
+        for (int j = last; j > block; j--) {
+            heads[j] = (heads[j] - 1) & mask;
+            blocks[j][heads[j]] = blocks[j - 1][(heads[j - 1] + blockSize - 1) & mask];
+        }
+
+        // make room in the target block
+        int end = block < last ? blockSize - 1 : oldSize - block * blockSize;
+        for (int k = end; k > offset; k--) {
+            blocks[block][(heads[block] + k) & mask] = blocks[block][(heads[block] + k - 1) & mask];
+        }
+        blocks[block][(heads[block] + offset) & mask] = item;
+        size++;
+    }
+
+    /**
+     * Method to remove an item at given index
+     * @param index - index of the item to be removed
+     * @return removed item
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E removeItem(int index) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        int mask = blockSize - 1;
+        int block = index / blockSize;
+        int offset = index & mask;
+        int last = blockCount - 1;
+        int blockLength = block < last ? blockSize : size - block * blockSize;
+
+        // close the gap in the target block
+        E removedElement = blocks[block][(heads[block] + offset) & mask];
+        for (int k = offset; k < blockLength - 1; k++) {
+            blocks[block][(heads[block] + k) & mask] = blocks[block][(heads[block] + k + 1) & mask];
+        }
+        if(block == last) {
+            blocks[block][(heads[block] + blockLength - 1) & mask] = null;
+        }
+
+        // move the first item of every later block one block down
+        for (int j = block + 1; j <= last; j++) {
+            blocks[j - 1][(heads[j - 1] + blockSize - 1) & mask] = blocks[j][heads[j]];
+            blocks[j][heads[j]] = null;
+            heads[j] = (heads[j] + 1) & mask;
+        }
+        size--;
+
+        if(size == last * blockSize) {
+            blocks[last] = null;
+            blockCount--;
+        }
+        if(blockSize > MIN_BLOCK_SIZE && size < blockSize * blockSize / 8)
+            rebuild(blockSize / 2);
+        return removedElement;
+    }
+
+    /**
+     * Method to get item by given index
+     * @param index - index of item
+     * @return item at given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E getItem(int index) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        int block = index / blockSize;
+        return blocks[block][(heads[block] + index) & (blockSize - 1)];
+    }
+
+    /**
+     * Method to set item at given index
+     * @param index - index where new elements needs to be added
+     * @param item  - the item to be added
+     * @return old item present at the given index
+     * @throws IndexOutOfBoundsException - if invalid index
+     */
+    @Override
+    public E setItem(int index, E item) throws IndexOutOfBoundsException {
+        if(!isValidIndex(index))
+            throw new IndexOutOfBoundsException();
+        int block = index / blockSize;
+        int slot = (heads[block] + index) & (blockSize - 1);
+        E oldVal = blocks[block][slot];
+        blocks[block][slot] = item;
+        return oldVal;
+    }
+
+    /**
+     * Method to return the size of the list
+     * @return size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to check if list is empty
+     * @return true if empty else false
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method to check if item is present in the list
+     * @param item - item that needs to be check in the list or not
+     * @return true if exist else false
+     */
+    @Override
+    public boolean contains(E item) {
+        for (int i = 0; i < size; i++) {
+            E current = getItem(i);
+            if(item == null ? current == null : item.equals(current))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method to remove every item matching the filter in a single compaction pass
+     * @param filter - returns true for the items to be removed
+     * @return number of items removed
+     */
+    @Override
+    public int removeIf(Predicate<? super E> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            E item = getItem(i);
+            if(!filter.test(item))
+                setItem(kept++, item);
+        }
+        int removed = size - kept;
+        while (size > kept) {
+            removeItem(size - 1);
+        }
+        return removed;
+    }
+
+    /**
+     * Method to add an empty block at the end of the list, growing the block size once the
+     * number of blocks is well past it
+     */
+    private void addBlock() {
+        if(blockCount >= 2 * blockSize) {
+            rebuild(blockSize * 2);
+            if(size < blockCount * blockSize)
+                return;
+        }
+        if(blockCount == blocks.length) {
+            E[][] tempBlocks = (E[][]) new Object[blocks.length * 2][];
+            int[] tempHeads = new int[blocks.length * 2];
+            System.arraycopy(blocks, 0, tempBlocks, 0, blockCount);
+            System.arraycopy(heads, 0, tempHeads, 0, blockCount);
+            blocks = tempBlocks;
+            heads = tempHeads;
+        }
+        blocks[blockCount] = (E[]) new Object[blockSize];
+        heads[blockCount] = 0;
+        blockCount++;
+    }
+
+    /**
+     * Method to copy all items into blocks of a new size
+     * @param newBlockSize - new block size, must be a power of two
+     */
+    private void rebuild(int newBlockSize) {
+        E[][] oldBlocks = blocks;
+        int[] oldHeads = heads;
+        int oldBlockSize = blockSize;
+        int oldSize = size;
+        init(newBlockSize);
+        for (int i = 0; i < oldSize; i++) {
+            int block = i / oldBlockSize;
+            addItem(oldBlocks[block][(oldHeads[block] + i) & (oldBlockSize - 1)]);
+        }
+    }
+
+    /**
+     * Method to reset the list to an empty list with the given block size
+     * @param newBlockSize - block size, must be a power of two
+     */
+    private void init(int newBlockSize) {
+        blockSize = newBlockSize;
+        blocks = (E[][]) new Object[newBlockSize][];
+        heads = new int[newBlockSize];
+        blockCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Method to check if the index is valid that is within bounds
+     * @param index - value needs to be checked if valid
+     * @return true if valid index else false
+     */
+    private boolean isValidIndex(int index) {
+        return index >= 0 && index < size;
+    }
+}
@@ -1,33 +1,198 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Main Class of the TodoApp
  * Display the user menu and enable to user to todolist operations
  */
 public class TodoList {
-    private ListAdt<Task> taskList = new ArrayList<>();
+    private TaskList taskList;
+
+    /**
+     * Builder of the tasks added from the menu
+     */
+    private final TaskFactory.Builder taskBuilder = TaskFactory.shared().builder();
+
+    /**
+     * Journal where the changes to the task list are stored, null if the tasks are only kept in memory
+     */
+    private TaskJournal journal;
+
+    /**
+     * Primary sending the changes to the task list to followers, null if the list is not replicated
+     */
+    private ReplicationPrimary replication;
+
+    /**
+     * Renderer used to print task tables
+     */
+    private TaskRenderer renderer = new TaskRenderer(System.out);
+
+    /**
+     * Reader shared by all prompts, so lines typed or piped in are never lost between prompts
+     */
+    private BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+
+    /**
+     * Time spent waiting for user input, left out of the measured time of menu commands
+     */
+    private long inputWaitNanos;
 
     // Status of TodoList items
     private static final String ALL_TASKS = "All";
     private static final String COMPLETED_TASKS = "Completed";
     private static final String REM_TASKS = "Incomplete";
+    private static final String OVERDUE_TASKS = "Overdue";
+    private static final String DUE_TASKS = "Due";
+    private static final String MATCHING_TASKS = "Matching";
+
+    // Names of the measured menu commands by option
+    private static final Map<String, String> MENU_COMMANDS = Map.ofEntries(Map.entry("1", "addTask"),
+            Map.entry("2", "showAll"), Map.entry("3", "showCompleted"), Map.entry("4", "showIncomplete"),
+            Map.entry("5", "completeTask"), Map.entry("6", "removeTask"), Map.entry("7", "findTask"),
+            Map.entry("8", "checkExists"), Map.entry("10", "removeCompleted"),
+            Map.entry("11", "completeOverdue"), Map.entry("12", "searchTasks"),
+            Map.entry("14", "undo"), Map.entry("15", "redo"), Map.entry("16", "importTasks"),
+            Map.entry("17", "exportTasks"), Map.entry("18", "queryTasks"), Map.entry("19", "showByDueDate"));
+
+    // Largest number of results of a name search
+    private static final int SEARCH_LIMIT = 100;
+
+    // Number of tasks shown on one page
+    private static final int PAGE_SIZE = 20;
+
+    // Implementations of the list where the tasks are stored
+    private static final String ARRAY_LIST = "array";
+    private static final String TIERED_LIST = "tiered";
+    private static final String SNAPSHOT_LIST = "persistent";
+
+    // Default directory where the tasks are stored
+    private static final String DEFAULT_DATA_DIR = "todo-data";
+
+    // Largest number of tasks named in one reminder
+    private static final int MAX_REMINDERS_SHOWN = 5;
+
+    // Default limits of the tenants and tasks kept in memory when serving many tenants
+    private static final int DEFAULT_MAX_TENANTS = 1000;
+    private static final long DEFAULT_MAX_TASKS = 5_000_000L;
+
+    /**
+     * Default constructor to create a TodoList that stores its tasks in an array list
+     */
+    public TodoList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructor to create a TodoList that stores its tasks in the given list
+     * @param tasks - empty list where the tasks will be stored
+     */
+    public TodoList(ListAdt<Task> tasks) {
+        this.taskList = new TaskList(tasks);
+    }
+
+    /**
+     * Method to load the stored tasks from the given directory and store all later changes there
+     * @param dataDir - directory where the tasks are stored
+     * @throws IOException - if the stored tasks cannot be loaded
+     */
+    public void openStorage(Path dataDir) throws IOException {
+        journal = TaskJournal.open(dataDir, taskList);
+    }
+
+    /**
+     * Method to show a reminder on the console whenever the due date of an incomplete task arrives
+     */
+    public void startReminders() {
+        new ReminderScheduler(taskList, Clock.systemDefaultZone(), TodoList::showReminders).start();
+    }
+
+    /**
+     * Method to show the reminders of the tasks that came due
+     * @param dueTasks - tasks that came due
+     */
+    private static void showReminders(ListAdt<Task> dueTasks) {
+        int shown = Math.min(dueTasks.size(), MAX_REMINDERS_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            Task task = dueTasks.getItem(i);
+            System.out.format("\nREMINDER: Task [%s] is due on %s\n", task.getName(), task.getDueDate());
+        }
+        if(dueTasks.size() > shown)
+            System.out.format("REMINDER: %d more tasks are due\n", dueTasks.size() - shown);
+    }
+
+    /**
+     * Method to make the changes done so far durable before they are reported as successful
+     */
+    private void commit() {
+        if(journal != null)
+            journal.commit();
+    }
 
+    /**
+     * Method to send the last changes to the followers, store all pending changes and close the storage
+     */
+    private void closeStorage() {
+        if(replication != null) {
+            replication.close();
+            replication = null;
+        }
+        if(journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                System.out.format("ERROR: Tasks could not be saved[%s]\n", ex.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    /**
+     * Method to read the next line of user input
+     * @return line without the line terminator
+     * @throws NoSuchElementException - if there is no more input
+     * @throws UncheckedIOException - if the input cannot be read
+     */
+    private String nextLine() throws NoSuchElementException, UncheckedIOException {
+        long start = System.nanoTime();
+        try {
+            String line = input.readLine();
+            if(line == null)
+                throw new NoSuchElementException("No line found");
+            return line;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            inputWaitNanos += System.nanoTime() - start;
+        }
+    }
 
     /**
      * Method to show Main Menu
      * @param totalTasks - number of total tasks
      * @param doneTasks - number of completed tasks
+     * @param remTasks - number of incomplete tasks, tasks without a status are in neither count
      */
-    private void showMainMenu(int totalTasks, int doneTasks) {
+    private void showMainMenu(int totalTasks, int doneTasks, int remTasks) {
         System.out.println();
         System.out.println("**************************************");
         System.out.println("              MAIN MENU               ");
         System.out.println("**************************************");
         System.out.format("Total Tasks [%d] | Completed Tasks[%d] | Rem Tasks[%d]\n", totalTasks, doneTasks,
-                totalTasks-doneTasks);
+                remTasks);
         System.out.println("1. Add a New Task");
         System.out.println("2. Show All Tasks");
         System.out.println("3. Show All Completed Tasks");
@@ -36,8 +201,18 @@ public class TodoList {
         System.out.println("6. Remove a Task");
         System.out.println("7. Find a Task by Name");
         System.out.println("8. Check if Task Exits");
+        System.out.println("10. Remove All Completed Tasks");
+        System.out.println("11. Complete All Overdue Tasks");
+        System.out.println("12. Search Tasks by Name");
+        System.out.println("13. Show Statistics");
+        System.out.println("14. Undo Last Change");
+        System.out.println("15. Redo Last Undone Change");
+        System.out.println("16. Import Tasks from File");
+        System.out.println("17. Export Tasks to File");
+        System.out.println("18. Query Tasks");
+        System.out.println("19. Show Tasks by Due Date");
         System.out.println("9. Quit");
-        System.out.print("Please choose an option[1-9]: ");
+        System.out.print("Please choose an option[1-19]: ");
     }
 
     /**
@@ -48,25 +223,76 @@ public class TodoList {
     private void showTasks(ListAdt<Task> tasks, String taskType) {
         System.out.format("--- Showing %s Tasks[%d] ---\n", taskType, tasks.size());
         if(tasks.size() > 0) {
-            String format = "%-8s %-35s %-15s %-15s";
-            System.out.println("-------------------------------------------------------------------");
-            System.out.println(String.format(format, "Index", "Name", "Due Date", "Done"));
-            System.out.println("-------------------------------------------------------------------");
-            int index = 1;
-            for (int i=0; i<tasks.size(); i++) {
-                Task task = tasks.getItem(i);
-                System.out.println(String.format(format, index, task.getName(), task.getDueDate(), task.isDone() ? "Yes" : "No"));
-                index++;
-            }
+            renderer.render(tasks, 0, tasks.size());
         } else {
-            switch (taskType) {
-                case ALL_TASKS : System.out.println("No Task added yet. Please add a task");break;
-                case COMPLETED_TASKS: System.out.println("No Tasks Completed yet");break;
-                case REM_TASKS: System.out.println("No Tasks Remaining");break;
+            showNoTasks(taskType);
+        }
+    }
+
+    /**
+     * Method to show tasks one page at a time, only the tasks of the shown page are read
+     * @param tasks - List of tasks
+     * @param taskType - Type of task to be displayed
+     */
+    private void browseTasks(ListAdt<Task> tasks, String taskType) {
+        if(tasks.size() <= PAGE_SIZE) {
+            showTasks(tasks, taskType);
+            return;
+        }
+        int page = 0;
+        while (true) {
+            int pageCount = (tasks.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+            if(pageCount == 0) {
+                showNoTasks(taskType);
+                return;
+            }
+            page = Math.min(page, pageCount - 1);
+            int from = page * PAGE_SIZE;
+            int to = Math.min(from + PAGE_SIZE, tasks.size());
+            System.out.format("--- Showing %s Tasks[%d] | Page %d of %d ---\n", taskType, tasks.size(),
+                    page + 1, pageCount);
+            renderer.render(tasks, from, to);
+            System.out.print("[N]ext, [P]revious, page number, #index to jump or [Q]uit to main menu: ");
+            String option = nextLine().trim();
+            try {
+                if("n".equalsIgnoreCase(option) || option.isEmpty()) {
+                    page = Math.min(page + 1, pageCount - 1);
+                } else if("p".equalsIgnoreCase(option)) {
+                    page = Math.max(page - 1, 0);
+                } else if("q".equalsIgnoreCase(option)) {
+                    return;
+                } else if(option.startsWith("#")) {
+                    int index = Integer.parseInt(option.substring(1));
+                    if(index <= 0 || index > tasks.size())
+                        throw new IndexOutOfBoundsException("Invalid Task Index " + index);
+                    page = (index - 1) / PAGE_SIZE;
+                } else {
+                    int pageNumber = Integer.parseInt(option);
+                    if(pageNumber <= 0 || pageNumber > pageCount)
+                        throw new IndexOutOfBoundsException("Invalid Page " + pageNumber);
+                    page = pageNumber - 1;
+                }
+            } catch (Exception ex) {
+                System.out.format("ERROR: Invalid Option[%s]\n", ex.getMessage());
             }
         }
     }
 
+    /**
+     * Method to show the message for an empty list of tasks
+     * @param taskType - Type of task that was to be displayed
+     */
+    private void showNoTasks(String taskType) {
+        switch (taskType) {
+            case ALL_TASKS : System.out.println("No Task added yet. Please add a task");break;
+            case COMPLETED_TASKS: System.out.println("No Tasks Completed yet");break;
+            case REM_TASKS: System.out.println("No Tasks Remaining");break;
+            case OVERDUE_TASKS: System.out.println("No Tasks Overdue");break;
+            case DUE_TASKS: System.out.println("No Tasks Due in this period");break;
+            case MATCHING_TASKS: System.out.println("No Tasks match this name");break;
+        }
+    }
+
     /**
      * Show details of a given task
      * @param task
@@ -83,7 +309,7 @@ public class TodoList {
      * @throws DateTimeException - if invalid date
      * @throws NullPointerException - if invalid task name
      */
-    private void validateTask(String taskName, LocalDate taskDate) throws DateTimeException, NullPointerException {
+    static void validateTask(String taskName, LocalDate taskDate) throws DateTimeException, NullPointerException {
         if(taskDate.compareTo(LocalDate.now()) < 0)
             throw new DateTimeException("Older than current date is used");
         if(taskName.isBlank()) throw new NullPointerException("Name for the task is required field");
@@ -93,19 +319,16 @@ public class TodoList {
      * Method to add new task to the list
      */
     private void addTask() {
-        Scanner scanner = new Scanner(System.in);
         try {
-            Task task = new Task();
             System.out.println("--- Enter Task Details ---");
             System.out.print("Enter Task Name: ");
-            String taskName = scanner.nextLine();
+            String taskName = nextLine();
             System.out.print("Enter Task Due Date[yyyy-mm-dd]: ");
-            String dueDate = scanner.nextLine();
+            String dueDate = nextLine();
             LocalDate taskDate = LocalDate.parse(dueDate);
             validateTask(taskName, taskDate);
-            task.setName(taskName);
-            task.setDueDate(taskDate);
-            taskList.addItem(task);
+            taskList.addItem(taskBuilder.name(taskName).dueDate(taskDate).build());
+            commit();
             System.out.println("SUCCESS: Task Added");
         } catch (DateTimeParseException dte) {
             System.out.format("ERROR: Invalid Due Date added for the task [%s]\n", dte.getMessage());
@@ -118,7 +341,6 @@ public class TodoList {
      * Method to remove a task from the list
      */
     private void removeTask() {
-        Scanner scanner = new Scanner(System.in);
         if(!taskList.isEmpty()) {
             try {
                 while (true) {
@@ -127,7 +349,7 @@ public class TodoList {
                     System.out.format("%-8s %-35s\n", taskList.size() + 1, "Back to Main Menu");
                     int taskRange = taskList.size() + 1;
                     System.out.format("Please choose an option[%s]: ", "1-" + taskRange);
-                    int selectedIndex = Integer.parseInt(scanner.nextLine());
+                    int selectedIndex = Integer.parseInt(nextLine());
 
                     // Return to main menu
                     if (selectedIndex == taskList.size() + 1) return;
@@ -137,9 +359,10 @@ public class TodoList {
                     }
 
                     System.out.print("Are you sure you want to remove (Y/N): ");
-                    String confirmation = scanner.nextLine();
+                    String confirmation = nextLine();
                     if ("Y".equalsIgnoreCase(confirmation)) {
                         taskList.removeItem(selectedIndex - 1);
+                        commit();
                         System.out.println("SUCCESS: Task Removed");
                         break;
                     }
@@ -157,7 +380,6 @@ public class TodoList {
      * Method to mark a task as Done or completed
      */
     private void completeTask() {
-        Scanner scanner = new Scanner(System.in);
         ListAdt<Task> incompleteTaskList = getIncompleteTaskList();
         if(!incompleteTaskList.isEmpty()) {
             try {
@@ -167,7 +389,7 @@ public class TodoList {
                     System.out.format("%-8s %-35s\n", incompleteTaskList.size() + 1, "Back to Main Menu");
                     int taskRange = incompleteTaskList.size() + 1;
                     System.out.format("Please choose an option[%s]: ", "1-" + taskRange);
-                    int selectedIndex = Integer.parseInt(scanner.nextLine());
+                    int selectedIndex = Integer.parseInt(nextLine());
 
                     // Return to main menu
                     if (selectedIndex == incompleteTaskList.size() + 1) return;
@@ -177,10 +399,11 @@ public class TodoList {
                     }
 
                     System.out.print("Are you sure you want to mark this task done (Y/N): ");
-                    String confirmation = scanner.nextLine();
+                    String confirmation = nextLine();
                     if ("Y".equalsIgnoreCase(confirmation)) {
                         Task task = incompleteTaskList.getItem(selectedIndex - 1);
                         task.setDone(true);
+                        commit();
                         System.out.println("SUCCESS: Task Marked Done");
                         break;
                     }
@@ -194,33 +417,184 @@ public class TodoList {
         }
     }
 
+    /**
+     * Method to remove all completed tasks from the list in one pass
+     */
+    private void removeCompletedTasks() {
+        if(taskList.completedCount() == 0) {
+            System.out.println("No Tasks Completed yet");
+            return;
+        }
+        System.out.format("Are you sure you want to remove %d completed tasks (Y/N): ", taskList.completedCount());
+        if ("Y".equalsIgnoreCase(nextLine())) {
+            int removed = taskList.removeIf(Task::isDone);
+            commit();
+            System.out.format("SUCCESS: %d Tasks Removed\n", removed);
+        }
+    }
+
+    /**
+     * Method to mark all overdue tasks as done in one pass
+     */
+    private void completeOverdueTasks() {
+        LocalDate today = LocalDate.now();
+        int marked = taskList.markDoneIf(task -> task.getDueDate() != null && task.getDueDate().isBefore(today));
+        if(marked > 0) {
+            commit();
+            System.out.format("SUCCESS: %d Overdue Tasks Marked Done\n", marked);
+        } else {
+            System.out.println("No Tasks Overdue");
+        }
+    }
+
     /**
      * Method to find a task by a name
      */
     private void findTask() {
-        Scanner scanner = new Scanner(System.in);
         System.out.println("--- Find a Task by Name ---");
         System.out.print("-Please enter the task name: ");
-        String searchName = scanner.nextLine();
-        for (int i=0; i< taskList.size(); i++) {
-            Task task = taskList.getItem(i);
-            if(searchName.equalsIgnoreCase(task.getName())) {
-                showTask(task);
-                return;
-            }
+        String searchName = nextLine();
+        Task task = taskList.findByName(searchName);
+        if(task != null) {
+            showTask(task);
+            return;
         }
         System.out.format("No task found by this name[%s]\n", searchName);
     }
 
+    /**
+     * Method to undo the last change made to the tasks
+     */
+    private void undoChange() {
+        if(taskList.undo()) {
+            commit();
+            System.out.println("SUCCESS: Last change undone");
+        } else {
+            System.out.println("Nothing to undo");
+        }
+    }
+
+    /**
+     * Method to redo the last change that was undone
+     */
+    private void redoChange() {
+        if(taskList.redo()) {
+            commit();
+            System.out.println("SUCCESS: Change redone");
+        } else {
+            System.out.println("Nothing to redo");
+        }
+    }
+
+    /**
+     * Method to show the measured latencies of the menu commands and list operations
+     */
+    private void showStatistics() {
+        System.out.println("--- Statistics ---");
+        StringBuilder statistics = new StringBuilder();
+        Metrics.dump(statistics);
+        System.out.print(statistics);
+    }
+
+    /**
+     * Method to search tasks by a part of their name
+     */
+    private void searchTasks() {
+        System.out.println("--- Search Tasks by Name ---");
+        System.out.print("-Please enter part of the task name: ");
+        String fragment = nextLine();
+        if(fragment.isBlank()) {
+            System.out.println("ERROR: Search text is required");
+            return;
+        }
+        browseTasks(taskList.search(fragment.trim(), SEARCH_LIMIT), MATCHING_TASKS);
+    }
+
+    /**
+     * Method to import tasks from a CSV or iCalendar file
+     */
+    private void importTasks() {
+        System.out.println("--- Import Tasks from File ---");
+        System.out.print("-Please enter the file path (.csv or .ics): ");
+        String path = nextLine().trim();
+        TaskImporter importer = new TaskImporter(taskList, journal);
+        try {
+            importer.importFile(Paths.get(path));
+        } catch (IOException | InvalidPathException ex) {
+            System.out.format("ERROR: File cannot be imported [%s]\n", ex.getMessage());
+        }
+        System.out.print(importer.summary());
+    }
+
+    /**
+     * Method to export all tasks to a CSV or iCalendar file
+     */
+    private void exportTasks() {
+        System.out.println("--- Export Tasks to File ---");
+        System.out.print("-Please enter the file path (.csv or .ics): ");
+        String path = nextLine().trim();
+        try {
+            long count = new TaskExporter().exportFile(Paths.get(path), taskList);
+            System.out.format("SUCCESS: %d tasks exported to %s\n", count, path);
+        } catch (IOException | InvalidPathException ex) {
+            System.out.format("ERROR: File cannot be exported [%s]\n", ex.getMessage());
+        }
+    }
+
+    /**
+     * Method to find the tasks meeting several conditions at once, any condition left blank is not used
+     */
+    private void queryTasks() {
+        System.out.println("--- Query Tasks ---");
+        TaskQuery query = taskList.query();
+        try {
+            System.out.print("-Status [A]ll, [C]ompleted or [I]ncomplete: ");
+            String status = nextLine().trim();
+            if("c".equalsIgnoreCase(status))
+                query.completed();
+            else if("i".equalsIgnoreCase(status))
+                query.incomplete();
+            System.out.print("-Due From Date[yyyy-mm-dd]: ");
+            String from = nextLine().trim();
+            System.out.print("-Due To Date[yyyy-mm-dd]: ");
+            String to = nextLine().trim();
+            if(!from.isEmpty() || !to.isEmpty())
+                query.dueBetween(from.isEmpty() ? null : LocalDate.parse(from), to.isEmpty() ? null : LocalDate.parse(to));
+            System.out.print("-Part of the task name: ");
+            String fragment = nextLine().trim();
+            if(!fragment.isEmpty())
+                query.nameContains(fragment);
+            System.out.print("-Sort by [L]ist order, [D]ue date or [N]ame: ");
+            String sort = nextLine().trim();
+            if("d".equalsIgnoreCase(sort))
+                query.orderBy(TaskQuery.Order.DUE_DATE);
+            else if("n".equalsIgnoreCase(sort))
+                query.orderBy(TaskQuery.Order.NAME);
+            else
+                query.orderBy(TaskQuery.Order.LIST);
+            System.out.print("-Largest number of tasks: ");
+            String limit = nextLine().trim();
+            if(!limit.isEmpty())
+                query.limit(Integer.parseInt(limit));
+        } catch (DateTimeParseException dte) {
+            System.out.format("ERROR: Invalid Date entered [%s]\n", dte.getMessage());
+            return;
+        } catch (IllegalArgumentException ex) {
+            System.out.format("ERROR: Invalid Number entered [%s]\n", ex.getMessage());
+            return;
+        }
+        System.out.format("Plan: %s\n", query.explain());
+        browseTasks(query.run(), MATCHING_TASKS);
+    }
+
     /**
      * Method to check of the task exist or not
      */
     private void checkIfTaskExits() {
-        Scanner scanner = new Scanner(System.in);
         System.out.println("--- Find a Task by Name ---");
         System.out.print("-Please enter the task name: ");
-        String searchName = scanner.nextLine();
-        if(taskList.contains(new Task(searchName, LocalDate.now()))) {
+        String searchName = nextLine();
+        if(taskList.containsName(searchName)) {
             System.out.format("Task with this name[%s] exists\n", searchName);
         } else {
             System.out.format("No task found by this name[%s]\n", searchName);
@@ -228,71 +602,324 @@ public class TodoList {
     }
 
     /**
-     * Method to return the list of completed items
-     * @return List of compeleted items
+     * Method to show the tasks that are overdue or due in a window of dates
      */
-    private ListAdt<Task> getCompletedTasks() {
-        ListAdt<Task> completedTasks = new ArrayList<>();
-        for (int i=0; i< taskList.size(); i++) {
-            Task task = taskList.getItem(i);
-            if(task.isDone()) {
-                completedTasks.addItem(task);
+    private void showTasksByDueDate() {
+        System.out.println("--- Show Tasks by Due Date ---");
+        System.out.println("1. Overdue Tasks");
+        System.out.println("2. Tasks Due in the Next 7 Days");
+        System.out.println("3. Tasks Due Between Two Dates");
+        System.out.print("Please choose an option[1-3]: ");
+        try {
+            LocalDate today = LocalDate.now();
+            switch (nextLine()) {
+                case "1": browseTasks(taskList.overdue(today), OVERDUE_TASKS); break;
+                case "2": browseTasks(taskList.dueBetween(today, today.plusDays(6), false), DUE_TASKS); break;
+                case "3":
+                    System.out.print("Enter From Date[yyyy-mm-dd]: ");
+                    LocalDate from = LocalDate.parse(nextLine());
+                    System.out.print("Enter To Date[yyyy-mm-dd]: ");
+                    LocalDate to = LocalDate.parse(nextLine());
+                    browseTasks(taskList.dueBetween(from, to, true), DUE_TASKS);
+                    break;
+                default: System.out.println("Invalid Option Selected");
             }
+        } catch (DateTimeParseException dte) {
+            System.out.format("ERROR: Invalid Date entered [%s]\n", dte.getMessage());
+        } catch (IllegalArgumentException iae) {
+            System.out.format("ERROR: Invalid Date Range entered [%s]\n", iae.getMessage());
         }
-        return completedTasks;
+    }
+
+    /**
+     * Method to return the list of completed items
+     * @return live view of compeleted items
+     */
+    private ListAdt<Task> getCompletedTasks() {
+        return taskList.completedTasks();
     }
 
     /**
      * Method to get a list of all incomplete task items
-     * @return incomplete list items
+     * @return live view of incomplete list items
      */
     private ListAdt<Task> getIncompleteTaskList() {
-        ListAdt<Task> incompleteTasks = new ArrayList<>();
-        for (int i=0; i< taskList.size(); i++) {
-            Task task = taskList.getItem(i);
-            if(!task.isDone()) {
-                incompleteTasks.addItem(task);
-            }
-        }
-        return incompleteTasks;
+        return taskList.incompleteTasks();
     }
 
     /**
      * Driver function of the class to enable user interact with the application
      */
     public void run() {
-        Scanner scanner = new Scanner(System.in);
         System.out.println("WELCOME TO TODO APP");
         try {
             while (true) {
-                showMainMenu(taskList.size(), getCompletedTasks().size());
-                String option = scanner.nextLine();
+                showMainMenu(taskList.size(), taskList.completedCount(), taskList.incompleteCount());
+                String option = nextLine();
                 System.out.println();
 
+                long start = System.nanoTime();
+                long waitBefore = inputWaitNanos;
                 switch (option) {
                     case "1": addTask(); break;
-                    case "2": showTasks(taskList, ALL_TASKS); break;
-                    case "3": showTasks(getCompletedTasks(), COMPLETED_TASKS);break;
-                    case "4": showTasks(getIncompleteTaskList(), REM_TASKS);break;
+                    case "2": browseTasks(taskList, ALL_TASKS); break;
+                    case "3": browseTasks(getCompletedTasks(), COMPLETED_TASKS);break;
+                    case "4": browseTasks(getIncompleteTaskList(), REM_TASKS);break;
                     case "5": completeTask();break;
                     case "6": removeTask();break;
                     case "7": findTask();break;
                     case "8": checkIfTaskExits();break;
-                    case "9": System.out.println("Exiting Application...");System.exit(0);break;
+                    case "10": removeCompletedTasks();break;
+                    case "11": completeOverdueTasks();break;
+                    case "12": searchTasks();break;
+                    case "13": showStatistics();break;
+                    case "14": undoChange();break;
+                    case "15": redoChange();break;
+                    case "16": importTasks();break;
+                    case "17": exportTasks();break;
+                    case "18": queryTasks();break;
+                    case "19": showTasksByDueDate();break;
+                    case "9": System.out.println("Exiting Application...");closeStorage();System.exit(0);break;
                     default: System.out.println("Invalid Option Selected. Please try again");
                 }
+                if(MENU_COMMANDS.containsKey(option))
+                    Metrics.histogram("menu." + MENU_COMMANDS.get(option))
+                            .record(System.nanoTime() - start - (inputWaitNanos - waitBefore));
             }
         } catch (Exception ex) {
             System.out.format("ERROR: Issue in the TODO APP [%s]", ex.getMessage());
+        } finally {
+            closeStorage();
+        }
+    }
+
+    /**
+     * Method to apply commands from the given reader without prompts and print a summary
+     * @param commands - reader of the commands, one per line
+     * @return number of commands that failed
+     * @throws IOException - if the commands cannot be read
+     */
+    public int runBatch(BufferedReader commands) throws IOException {
+        try {
+            return new BatchRunner(taskList, journal, System.out).run(commands);
+        } finally {
+            closeStorage();
+        }
+    }
+
+    /**
+     * Method to serve the task list over HTTP until the process is stopped, the changes are
+     * stored when the process shuts down
+     * @param port - port to listen on
+     * @throws IOException - if the server cannot be started
+     */
+    public void serve(int port) throws IOException {
+        TaskServer server = new TaskServer(taskList, journal);
+        int boundPort = server.start(new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            closeStorage();
+        }));
+        System.out.format("Serving tasks on port %d\n", boundPort);
+    }
+
+    /**
+     * Method to send every change to the task list to the followers that connect on the port
+     * @param port - port the followers connect to
+     * @throws IOException - if the port cannot be listened on
+     */
+    public void startReplication(int port) throws IOException {
+        replication = new ReplicationPrimary(taskList, new InetSocketAddress(port));
+        System.out.format("Replicating tasks on port %d\n", replication.getPort());
+    }
+
+    /**
+     * Method to serve a read only copy of the task list of a primary over HTTP until the
+     * process is stopped, the copy is kept up to date with the changes sent by the primary
+     * @param port - port to listen on
+     * @param primary - address of the primary
+     * @param listType - type of the list the copy is kept in
+     */
+    private static void serveFollower(int port, InetSocketAddress primary, String listType) {
+        createList(listType);
+        ReplicationFollower follower = new ReplicationFollower(primary, () -> createList(listType));
+        Metrics.register("follower", follower);
+        follower.start();
+        TaskServer server = new TaskServer(follower);
+        try {
+            int boundPort = server.start(new InetSocketAddress(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                try {
+                    follower.close();
+                } catch (IOException ex) {
+                    // the process is stopping either way
+                }
+            }));
+            System.out.format("Serving tasks of the primary %s on port %d\n", primary, boundPort);
+        } catch (IOException ex) {
+            System.out.format("ERROR: Server could not be started[%s]\n", ex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Method to serve the task lists of many tenants over HTTP until the process is stopped
+     * @param port - port to listen on
+     * @param dataDir - directory where the tenants' tasks are stored
+     * @param listType - type of the lists the tenants' tasks are kept in
+     * @param maxTenants - largest number of tenants kept in memory
+     * @param maxTasks - largest number of tasks kept in memory over all tenants
+     */
+    private static void serveTenants(int port, Path dataDir, String listType, int maxTenants, long maxTasks) {
+        createList(listType);
+        TenantRegistry registry = new TenantRegistry(dataDir, () -> createList(listType), maxTenants, maxTasks);
+        TaskServer server = new TaskServer(registry);
+        try {
+            int boundPort = server.start(new InetSocketAddress(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                try {
+                    registry.close();
+                } catch (IOException ex) {
+                    System.out.format("ERROR: Tasks could not be saved[%s]\n", ex.getMessage());
+                }
+            }));
+            System.out.format("Serving tenants on port %d\n", boundPort);
+        } catch (IOException ex) {
+            System.out.format("ERROR: Server could not be started[%s]\n", ex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Method to create the list where the tasks are stored
+     * @param listType - type of the list, array, tiered or persistent
+     * @return empty list of the given type
+     * @throws IllegalArgumentException - if unknown list type
+     */
+    private static ListAdt<Task> createList(String listType) throws IllegalArgumentException {
+        switch (listType) {
+            case ARRAY_LIST: return new ArrayList<>();
+            case TIERED_LIST: return new TieredArrayList<>();
+            case SNAPSHOT_LIST: return new SnapshotList<>();
+            default: throw new IllegalArgumentException("Unknown list type : " + listType);
         }
     }
 
     /**
      * Main function of the class
+     * Use "--list tiered" to store the tasks in a tiered list, which is faster at removing
+     * tasks from the middle of very long lists, or "--list persistent" for a list whose
+     * snapshots are O(1)
+     * Use "--data dir" to choose where the tasks are stored, or "--in-memory" to not store them
+     * Use "--batch file" to apply the commands in a file without prompts, "--batch -" reads
+     * the commands from standard input
+     * Use "--reminders" to be reminded on the console when the due date of a task arrives
+     * Use "--replicate port" to send every change to followers connecting on the port, and
+     * "--follow host:port --serve port" to serve a read only copy of the list of a primary
      * @param args
      */
     public static void main(String args[]) {
-        TodoList todoList = new TodoList();
+        String listType = ARRAY_LIST;
+        String dataDir = DEFAULT_DATA_DIR;
+        String batchFile = null;
+        int servePort = -1;
+        boolean tenants = false;
+        boolean metrics = false;
+        boolean reminders = false;
+        int replicatePort = -1;
+        String follow = null;
+        int maxTenants = DEFAULT_MAX_TENANTS;
+        long maxTasks = DEFAULT_MAX_TASKS;
+        for (int i = 0; i < args.length; i++) {
+            if("--list".equals(args[i]) && i + 1 < args.length) {
+                listType = args[++i];
+            } else if("--data".equals(args[i]) && i + 1 < args.length) {
+                dataDir = args[++i];
+            } else if("--in-memory".equals(args[i])) {
+                dataDir = null;
+            } else if("--batch".equals(args[i]) && i + 1 < args.length) {
+                batchFile = args[++i];
+            } else if("--serve".equals(args[i]) && i + 1 < args.length) {
+                servePort = Integer.parseInt(args[++i]);
+            } else if("--metrics".equals(args[i])) {
+                metrics = true;
+            } else if("--reminders".equals(args[i])) {
+                reminders = true;
+            } else if("--replicate".equals(args[i]) && i + 1 < args.length) {
+                replicatePort = Integer.parseInt(args[++i]);
+            } else if("--follow".equals(args[i]) && i + 1 < args.length) {
+                follow = args[++i];
+            } else if("--tenants".equals(args[i])) {
+                tenants = true;
+            } else if("--max-tenants".equals(args[i]) && i + 1 < args.length) {
+                maxTenants = Integer.parseInt(args[++i]);
+            } else if("--max-tasks".equals(args[i]) && i + 1 < args.length) {
+                maxTasks = Long.parseLong(args[++i]);
+            }
+        }
+        if(tenants) {
+            if(servePort < 0 || dataDir == null) {
+                System.out.println("ERROR: --tenants needs --serve port and a data directory");
+                System.exit(2);
+            }
+            serveTenants(servePort, Paths.get(dataDir), listType, maxTenants, maxTasks);
+            return;
+        }
+        if(follow != null) {
+            int portStart = follow.lastIndexOf(':');
+            if(servePort < 0 || portStart < 0) {
+                System.out.println("ERROR: --follow needs the primary as host:port and --serve port");
+                System.exit(2);
+            }
+            serveFollower(servePort, new InetSocketAddress(follow.substring(0, portStart),
+                    Integer.parseInt(follow.substring(portStart + 1))), listType);
+            return;
+        }
+        ListAdt<Task> tasks = createList(listType);
+        if(metrics)
+            tasks = new InstrumentedList<>("tasks", tasks);
+        TodoList todoList = new TodoList(tasks);
+        if(dataDir != null) {
+            try {
+                todoList.openStorage(Paths.get(dataDir));
+            } catch (IOException ex) {
+                System.out.format("ERROR: Stored tasks could not be loaded[%s]\n", ex.getMessage());
+                return;
+            }
+        }
+        if(batchFile != null) {
+            try (BufferedReader commands = "-".equals(batchFile) ? todoList.input
+                    : Files.newBufferedReader(Paths.get(batchFile))) {
+                int failed = todoList.runBatch(commands);
+                System.exit(failed == 0 ? 0 : 1);
+            } catch (IOException ex) {
+                System.out.format("ERROR: Batch commands could not be read[%s]\n", ex.getMessage());
+                System.exit(2);
+            }
+        }
+        if(replicatePort >= 0) {
+            try {
+                todoList.startReplication(replicatePort);
+            } catch (IOException ex) {
+                System.out.format("ERROR: Replication could not be started[%s]\n", ex.getMessage());
+                todoList.closeStorage();
+                System.exit(2);
+            }
+        }
+        if(reminders)
+            todoList.startReminders();
+        if(servePort >= 0) {
+            try {
+                todoList.serve(servePort);
+            } catch (IOException ex) {
+                System.out.format("ERROR: Server could not be started[%s]\n", ex.getMessage());
+                todoList.closeStorage();
+                System.exit(2);
+            }
+            return;
+        }
         todoList.run();
     }
 }
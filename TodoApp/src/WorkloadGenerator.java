@@ -0,0 +1,260 @@
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator of tasks and operations for load and soak tests
+ * The same seed always gives the same tasks and the same operations, so a slow run can be
+ * repeated exactly. Names are made of a verb and a noun picked with a Zipf distribution, so a
+ * few names are very common and most are rare, and half of them carry a number as in
+ * "Send invoice 1042". The name of the nth task depends only on the seed and n, so lookups can
+ * ask for the name of any task generated before without keeping the names. Due dates cluster
+ * in the next weeks, with some overdue tasks and a long tail of tasks due in months or years
+ */
+public class WorkloadGenerator {
+
+    /**
+     * Operations of a workload
+     */
+    public enum Operation {
+        /** Add a new task at the end of the list */
+        ADD,
+        /** Remove the task at a random index */
+        REMOVE,
+        /** Mark the task at a random index as done */
+        COMPLETE,
+        /** Look up a task by the name of a task generated before */
+        FIND,
+        /** Read a page of tasks at a random offset */
+        LIST
+    }
+
+    private static final String[] VERBS = {"Send", "Review", "Call", "Email", "Fix", "Write", "Plan", "Pay",
+            "Book", "Update", "Prepare", "Check", "Buy", "Clean", "Schedule", "Deploy", "Test", "Renew",
+            "Submit", "Organize", "Cancel", "Order", "Read", "Finish", "Draft", "Return", "Backup", "Visit",
+            "Sign", "File"};
+
+    private static final String[] NOUNS = {"invoice", "report", "mom", "dentist", "bug", "proposal", "budget",
+            "rent", "flight", "website", "presentation", "taxes", "groceries", "kitchen", "meeting", "release",
+            "tests", "passport", "application", "desk", "subscription", "parts", "book", "chapter", "slides",
+            "package", "laptop", "garage", "contract", "insurance", "car", "newsletter", "client", "team",
+            "roadmap", "server", "backlog", "notes", "license", "doctor", "bank", "landlord", "recipe",
+            "garden", "inbox", "vacation", "payroll", "homework", "lease", "boss"};
+
+    /**
+     * Exponent of the Zipf distributions of verbs and nouns
+     */
+    private static final double ZIPF_EXPONENT = 1.1;
+
+    private static final double[] VERB_WEIGHTS = zipf(VERBS.length);
+    private static final double[] NOUN_WEIGHTS = zipf(NOUNS.length);
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Page size of list operations
+     */
+    private static final int PAGE_SIZE = 20;
+
+    private final long seed;
+    private final SplittableRandom random;
+    private final LocalDate today;
+
+    /**
+     * Share of each operation as cumulative percentages, in the order of Operation
+     */
+    private final int[] cumulativeMix;
+
+    /**
+     * Number of tasks generated so far
+     */
+    private long generated;
+
+    private final TaskFactory.Builder taskBuilder = TaskFactory.shared().builder();
+    private final StringBuilder name = new StringBuilder(32);
+
+    /**
+     * Constructor to create a generator
+     * @param seed - seed of every random choice
+     * @param today - day the due dates are spread around
+     * @param mix - percentage of each operation in the order of Operation, adding up to 100
+     */
+    public WorkloadGenerator(long seed, LocalDate today, int[] mix) {
+        if(mix.length != Operation.values().length)
+            throw new IllegalArgumentException("The mix needs a share for each of " + Operation.values().length + " operations");
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.today = today;
+        this.cumulativeMix = new int[mix.length];
+        int total = 0;
+        for (int i = 0; i < mix.length; i++) {
+            if(mix[i] < 0)
+                throw new IllegalArgumentException("Shares of the mix must not be negative");
+            total += mix[i];
+            cumulativeMix[i] = total;
+        }
+        if(total != 100)
+            throw new IllegalArgumentException("Shares of the mix must add up to 100, not " + total);
+    }
+
+    /**
+     * Method to parse a mix like "add=25,remove=25,complete=20,find=10,list=20", operations left
+     * out get no share
+     * @param text - comma separated operation=percentage pairs
+     * @return percentage of each operation in the order of Operation
+     */
+    public static int[] parseMix(String text) {
+        int[] mix = new int[Operation.values().length];
+        for (String part : text.split(",")) {
+            int equals = part.indexOf('=');
+            if(equals < 0)
+                throw new IllegalArgumentException("Usage: operation=percentage,... but got " + part);
+            Operation operation = Operation.valueOf(part.substring(0, equals).trim().toUpperCase());
+            mix[operation.ordinal()] = Integer.parseInt(part.substring(equals + 1).trim());
+        }
+        return mix;
+    }
+
+    /**
+     * Method to generate the next task, tasks that were due long ago are often already done
+     * @return new task
+     */
+    public Task nextTask() {
+        long number = generated++;
+        appendName(number);
+        long dueDay = today.toEpochDay() + dueOffset();
+        boolean done = dueDay < today.toEpochDay() && random.nextInt(2) == 0;
+        return taskBuilder.name(name).dueDate(dueDay).done(done).build();
+    }
+
+    /**
+     * Method to pick the next operation of the mix
+     * @return operation
+     */
+    public Operation nextOperation() {
+        int percent = random.nextInt(100);
+        for (int i = 0; i < cumulativeMix.length; i++) {
+            if(percent < cumulativeMix[i])
+                return Operation.values()[i];
+        }
+        return Operation.LIST;
+    }
+
+    /**
+     * Method to pick a random index of a list
+     * @param size - size of the list, more than 0
+     * @return index from 0 to size - 1
+     */
+    public int nextIndex(int size) {
+        return random.nextInt(size);
+    }
+
+    /**
+     * Method to pick the offset of a page of a list
+     * @param size - size of the list
+     * @return offset of a page within the list
+     */
+    public int nextPageOffset(int size) {
+        return size <= PAGE_SIZE ? 0 : random.nextInt(size - PAGE_SIZE + 1);
+    }
+
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    /**
+     * Method to get the name of a random task generated before, which may have been removed
+     * since. The name is generated again, so it is a new string equal to the name of the task
+     * @return name of a generated task
+     */
+    public String nextExistingName() {
+        if(generated == 0)
+            return "";
+        appendName(random.nextLong(generated));
+        return name.toString();
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Method to put the name of the task with the given number in the name buffer
+     */
+    private void appendName(long number) {
+        long bits = mix(seed + number * GOLDEN_GAMMA);
+        name.setLength(0);
+        name.append(VERBS[pick(VERB_WEIGHTS, bits & 0xFFFFFF)]).append(' ')
+                .append(NOUNS[pick(NOUN_WEIGHTS, (bits >>> 24) & 0xFFFFFF)]);
+        if((bits >>> 48 & 1) == 1)
+            name.append(' ').append((bits >>> 49) % 10_000);
+    }
+
+    /**
+     * Method to pick the days from today to the due date of a task: 15% overdue by up to two
+     * months, 60% due in the next month, 20% in the next year and 5% in the next five years,
+     * the nearer days of each range being the more likely
+     */
+    private long dueOffset() {
+        int range = random.nextInt(100);
+        if(range < 15)
+            return -1 - nearDay(60, 10);
+        if(range < 75)
+            return nearDay(30, 7);
+        if(range < 95)
+            return 30 + nearDay(335, 90);
+        return 365 + random.nextInt(365 * 4);
+    }
+
+    /**
+     * Method to pick a day below the limit with a geometric distribution of the given mean
+     */
+    private long nearDay(int limit, double mean) {
+        double day = -mean * Math.log(1 - random.nextDouble());
+        return Math.min(limit - 1, (long) day);
+    }
+
+    /**
+     * Method to pick an index from cumulative weights
+     * @param weights - cumulative weights ending with 1
+     * @param bits - 24 random bits
+     */
+    private static int pick(double[] weights, long bits) {
+        double value = bits / (double) (1 << 24);
+        int low = 0;
+        int high = weights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if(weights[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Method to compute the cumulative weights of a Zipf distribution over count items
+     */
+    private static double[] zipf(int count) {
+        double[] weights = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            weights[i] = total;
+        }
+        for (int i = 0; i < count; i++) {
+            weights[i] /= total;
+        }
+        weights[count - 1] = 1;
+        return weights;
+    }
+
+    /**
+     * Method to scramble the bits of a number, as the finalizer of SplitMix64
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}